@@ -0,0 +1,65 @@
+package com.bookstore.api.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: runs the selected benchmarks once per thread
+ * count and writes all results to one JSON file, so runs can be compared.
+ * <p>
+ * Accepts the usual JMH options, plus -threads with a comma-separated list of
+ * thread counts (default 1,4). Results go to the file named by -rff (default
+ * jmh-result.json). For example:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar -threads 1,8 -rff before.json BookDataBenchmark
+ * </pre>
+ * Each result in the JSON carries its thread count and parameters.
+ */
+public final class BenchmarkRunner {
+    private static final String THREADS_OPTION = "-threads";
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        List<Integer> threadCounts = new ArrayList<>(List.of(1, 4));
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (THREADS_OPTION.equals(args[i]) && i + 1 < args.length) {
+                threadCounts.clear();
+                for (String count : args[++i].split(",")) {
+                    threadCounts.add(Integer.parseInt(count.trim()));
+                }
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        String resultFile = commandLine.getResult().orElse(DEFAULT_RESULT_FILE);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    // Results are written once, below, for all thread counts together
+                    .resultFormat(ResultFormatType.TEXT)
+                    .result(System.getProperty("java.io.tmpdir") + "/jmh-threads-" + threads + ".txt")
+                    .build();
+            results.addAll(new Runner(options).run());
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, resultFile).writeOut(results);
+        System.out.println("Wrote " + results.size() + " results to " + resultFile);
+    }
+}
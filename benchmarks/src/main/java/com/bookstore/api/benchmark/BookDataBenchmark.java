@@ -0,0 +1,53 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.BookData;
+import com.bookstore.api.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog reads: a lookup by id, and a full listing at different catalog sizes.
+ * The catalog store is chosen when BookData is loaded; pass
+ * -jvmArgsAppend -Dbookstore.catalog=columnar to measure the columnar one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class BookDataBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private int firstBookId;
+
+    @Setup
+    public void seed() {
+        firstBookId = Fixtures.seedCatalog(catalogSize);
+    }
+
+    @Benchmark
+    public Book findBookById() {
+        return BookData.findBookById(firstBookId + ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return BookData.getAllBooks();
+    }
+}
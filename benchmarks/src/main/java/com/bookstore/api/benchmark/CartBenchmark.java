@@ -0,0 +1,97 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.CartData;
+import com.bookstore.api.model.CartItem;
+import com.bookstore.api.resource.CartResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole CartResource.addItemToCart and updateItemInCart flows: customer
+ * and book validation, the stock reservation and the cart change. The
+ * resource methods are called directly, so HTTP and JSON are not included.
+ * Each benchmark thread shops as a customer of its own, so threads contend on
+ * stock but not on carts.
+ * <p>
+ * A cart change stores a copy of the cart, so its cost depends on the cart
+ * size: addItemToCart empties the cart once it holds {@link Shopper#cartSize}
+ * lines, and updateItemInCart changes one line of a cart that always holds
+ * exactly that many. Run with -prof gc for the allocation profile:
+ * gc.alloc.rate.norm is the number of bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class CartBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"1000", "100000"})
+        public int catalogSize;
+
+        int firstBookId;
+
+        @Setup
+        public void seed() {
+            firstBookId = Fixtures.seedCatalog(catalogSize);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shopper {
+        @Param({"10", "1000"})
+        public int cartSize;
+
+        final CartResource resource = new CartResource();
+        int customerId;
+        int lines;
+
+        @Setup
+        public void register() {
+            customerId = Fixtures.addCustomer("Shopper " + Thread.currentThread().getId());
+        }
+
+        // Fills the cart with cartSize distinct books, the first cartSize of the catalog
+        @Setup(Level.Iteration)
+        public void fillCart(Catalog catalog) {
+            CartData.deleteCart(customerId);
+            for (int i = 0; i < cartSize; i++) {
+                CartData.addItem(customerId, catalog.firstBookId + i % catalog.catalogSize, 1);
+            }
+            lines = cartSize;
+        }
+    }
+
+    @Benchmark
+    public Response addItemToCart(Catalog catalog, Shopper shopper) {
+        if (shopper.lines++ == shopper.cartSize) {
+            CartData.deleteCart(shopper.customerId);
+            shopper.lines = 1;
+        }
+        int bookId = catalog.firstBookId + ThreadLocalRandom.current().nextInt(catalog.catalogSize);
+        return shopper.resource.addItemToCart(shopper.customerId, new CartItem(bookId, 1));
+    }
+
+    @Benchmark
+    public Response updateItemInCart(Catalog catalog, Shopper shopper) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bookId = catalog.firstBookId + random.nextInt(Math.min(shopper.cartSize, catalog.catalogSize));
+        return shopper.resource.updateItemInCart(shopper.customerId, bookId, new CartItem(bookId, 1 + random.nextInt(3)));
+    }
+}
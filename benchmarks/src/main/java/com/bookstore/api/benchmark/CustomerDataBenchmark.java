@@ -0,0 +1,50 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.CustomerData;
+import com.bookstore.api.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer lookup by email, which goes through the normalized email index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class CustomerDataBenchmark {
+
+    @Param({"1000", "100000"})
+    public int customerCount;
+
+    private String[] emails;
+
+    @Setup
+    public void seed() {
+        Fixtures.seedCustomers(customerCount);
+        // Upper-cased, so every lookup pays for normalization the way client input does
+        emails = new String[customerCount];
+        for (int i = 0; i < customerCount; i++) {
+            emails[i] = Fixtures.email(i).toUpperCase();
+        }
+    }
+
+    @Benchmark
+    public Customer findCustomerByEmail() {
+        return CustomerData.findCustomerByEmail(emails[ThreadLocalRandom.current().nextInt(customerCount)]);
+    }
+}
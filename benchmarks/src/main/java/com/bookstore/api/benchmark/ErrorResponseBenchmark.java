@@ -0,0 +1,98 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.config.Application;
+import com.bookstore.api.model.CartItem;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error traffic through the whole Jersey stack: lookups of ids that do not
+ * exist, as bots probing ids send, and adds to the cart that fail for lack of
+ * stock, as clients racing for the last copy do. Each request is matched,
+ * handled, mapped to its error response and written to a buffer, with no
+ * network. A lookup that succeeds is included for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class ErrorResponseBenchmark {
+    private static final URI BASE_URI = URI.create("http://localhost/api/");
+    private static final int CATALOG_SIZE = 1000;
+
+    private ApplicationHandler handler;
+    private int firstBookId;
+    private int customerId;
+    private byte[] outOfStockItem;
+
+    @Setup
+    public void start() {
+        firstBookId = Fixtures.seedCatalog(CATALOG_SIZE, 0);
+        customerId = Fixtures.addCustomer("Prober");
+        outOfStockItem = ("{\"bookId\":" + firstBookId + ",\"quantity\":1}").getBytes(StandardCharsets.UTF_8);
+        handler = new ApplicationHandler(new Application());
+    }
+
+    @Benchmark
+    public int getMissingBook() throws Exception {
+        return get("books/" + (firstBookId + CATALOG_SIZE + ThreadLocalRandom.current().nextInt(CATALOG_SIZE)));
+    }
+
+    @Benchmark
+    public int getMissingCustomerCart() throws Exception {
+        return get("customers/" + (customerId + 1 + ThreadLocalRandom.current().nextInt(CATALOG_SIZE)) + "/cart");
+    }
+
+    @Benchmark
+    public int addOutOfStockItem() throws Exception {
+        ContainerRequest request = request("POST", "customers/" + customerId + "/cart/items");
+        request.getHeaders().putSingle("Content-Type", MediaType.APPLICATION_JSON);
+        request.setEntityStream(new ByteArrayInputStream(outOfStockItem));
+        return apply(request);
+    }
+
+    @Benchmark
+    public int getExistingBook() throws Exception {
+        return get("books/" + (firstBookId + ThreadLocalRandom.current().nextInt(CATALOG_SIZE)));
+    }
+
+    private int get(String path) throws ExecutionException, InterruptedException {
+        return apply(request("GET", path));
+    }
+
+    private ContainerRequest request(String method, String path) {
+        ContainerRequest request = new ContainerRequest(BASE_URI, BASE_URI.resolve(path), method, null,
+                new MapPropertiesDelegate(), handler.getConfiguration());
+        request.getHeaders().putSingle("Accept", MediaType.APPLICATION_JSON);
+        return request;
+    }
+
+    private int apply(ContainerRequest request) throws ExecutionException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        ContainerResponse response = handler.apply(request, body).get();
+        return response.getStatus() + body.size();
+    }
+}
@@ -0,0 +1,66 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.AuthorData;
+import com.bookstore.api.data.BookData;
+import com.bookstore.api.data.CustomerData;
+import com.bookstore.api.model.Author;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Customer;
+
+/**
+ * Seeds the in-memory data layer for a benchmark run.
+ * The Data classes are static, so every fork starts empty and each benchmark
+ * seeds it once per trial; JMH runs each parameter combination in its own
+ * fork, so datasets of different sizes never mix.
+ */
+final class Fixtures {
+    static final int BOOKS_PER_AUTHOR = 20;
+    // Large enough that stock never runs out during a measurement iteration
+    static final int STOCK_PER_BOOK = 1_000_000_000;
+
+    private Fixtures() {
+    }
+
+    // Method to add a catalog of the given size, returning the id of its first book
+    static int seedCatalog(int bookCount) {
+        return seedCatalog(bookCount, STOCK_PER_BOOK);
+    }
+
+    // Method to add a catalog with the given stock of every book, returning the id of its first book
+    static int seedCatalog(int bookCount, int stockPerBook) {
+        int firstBookId = 0;
+        Author author = null;
+        for (int i = 0; i < bookCount; i++) {
+            if (i % BOOKS_PER_AUTHOR == 0) {
+                author = AuthorData.addAuthor(new Author(0, "Author " + i / BOOKS_PER_AUTHOR, null));
+            }
+            Book book = BookData.addBook(new Book(0, "Title " + i, author.getId(), String.format("978%010d", i),
+                    1950 + i % 75, 5 + i % 50, stockPerBook));
+            if (i == 0) {
+                firstBookId = book.getId();
+            }
+        }
+        return firstBookId;
+    }
+
+    // Method to add customers with predictable emails, returning the id of the first
+    static int seedCustomers(int customerCount) {
+        int firstCustomerId = 0;
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = CustomerData.addCustomer(new Customer(0, "Customer " + i, email(i), "secret"));
+            if (i == 0) {
+                firstCustomerId = customer.getId();
+            }
+        }
+        return firstCustomerId;
+    }
+
+    // Method to add one customer, e.g. for a benchmark thread of its own
+    static int addCustomer(String name) {
+        return CustomerData.addCustomer(new Customer(0, name, name.replace(' ', '.') + "@bench.example", "secret")).getId();
+    }
+
+    static String email(int index) {
+        return "customer" + index + "@bench.example";
+    }
+}
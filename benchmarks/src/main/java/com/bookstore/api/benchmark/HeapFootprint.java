@@ -0,0 +1,42 @@
+package com.bookstore.api.benchmark;
+
+import java.lang.ref.Reference;
+import java.util.function.Supplier;
+
+/**
+ * Measures how much heap a data structure retains: the used heap after a
+ * full collection, before and after building it. The numbers are most
+ * stable with a stop-the-world collector and a fixed heap, e.g.
+ * -XX:+UseParallelGC -Xms4g -Xmx4g.
+ */
+public final class HeapFootprint {
+    private static final int GC_ROUNDS = 5;
+
+    private HeapFootprint() {
+    }
+
+    // Method to build a structure and return the bytes it retains once built
+    public static long retainedBytes(Supplier<?> build) {
+        long before = usedAfterGc();
+        Object retained = build.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    // Method to print one result line with the bytes per entry
+    public static void report(String label, long bytes, int entries) {
+        System.out.printf("%-28s %,15d bytes %10.1f bytes/entry%n", label, bytes, (double) bytes / entries);
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A single System.gc() may leave floating garbage behind; keep the lowest reading
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,314 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.config.Application;
+import com.bookstore.api.data.CartData;
+import com.bookstore.api.data.InventoryData;
+import com.bookstore.api.data.OrderData;
+import com.bookstore.api.metrics.Histogram;
+import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.CartItem;
+import com.bookstore.api.model.Order;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.inmemory.InMemoryTestContainerFactory;
+import org.glassfish.jersey.test.spi.TestContainer;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test that runs the whole application in-process, on Jersey's
+ * in-memory container, and drives it with a mix of shopping sessions from
+ * many simulated customers.
+ * <p>
+ * Sessions arrive open-loop, at random (Poisson) intervals averaging
+ * loadtest.arrivalRate per second, and are run by a pool of
+ * loadtest.workers threads. Each session is a random customer running one
+ * {@link Scenario}, picked by the weights in loadtest.mix. Sessions that
+ * find every worker busy wait in a bounded queue; sessions that find the
+ * queue full are dropped and counted. Session latency is measured from the
+ * moment the session was due to arrive, so time spent queueing counts;
+ * request latency is measured per request. Throughput and latencies are
+ * reported for the time after the warmup; the checks cover the whole run.
+ * <p>
+ * Stock is deliberately scarce and most traffic goes to a few hot books,
+ * so customers race for stock. At the end the run checks that:
+ * <ul>
+ * <li>stock was never negative, sampled every 50 ms during the run and once at the end;</li>
+ * <li>for every book, the initial stock equals what is still available plus what
+ * is in carts plus what was ordered;</li>
+ * <li>no request failed with a 5xx or without a response.</li>
+ * </ul>
+ * and exits with status 1 if any check fails.
+ * <p>
+ * Settings are system properties: loadtest.customers (default 500),
+ * loadtest.books (1000), loadtest.stockPerBook (50), loadtest.hotBooks (20),
+ * loadtest.arrivalRate (500), loadtest.warmupSeconds (5),
+ * loadtest.durationSeconds (30), loadtest.workers (16) and loadtest.mix
+ * (browse=50,add=30,update=10,checkout=10). Request logging is off unless
+ * bookstore.log.sampleRate is set.
+ */
+public final class LoadTest {
+    static final String LIST_BOOKS = "GET /books";
+    static final String GET_BOOK = "GET /books/{id}";
+    static final String GET_CART = "GET /customers/{id}/cart";
+    static final String ADD_ITEM = "POST /customers/{id}/cart/items";
+    static final String UPDATE_ITEM = "PUT /customers/{id}/cart/items/{bookId}";
+    static final String CHECKOUT = "POST /customers/{id}/orders";
+    private static final String SESSION = "session";
+    private static final String LOG_SAMPLE_RATE_PROPERTY = "bookstore.log.sampleRate";
+    private static final long STOCK_SAMPLE_MILLIS = 50;
+    // Share of book picks that go to the hot books
+    private static final double HOT_SHARE = 0.8;
+
+    private final int customers = Integer.getInteger("loadtest.customers", 500);
+    private final int books = Integer.getInteger("loadtest.books", 1000);
+    private final int stockPerBook = Integer.getInteger("loadtest.stockPerBook", 50);
+    private final int hotBooks = Math.min(Integer.getInteger("loadtest.hotBooks", 20), books);
+    private final double arrivalRate = Double.parseDouble(System.getProperty("loadtest.arrivalRate", "500"));
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 5);
+    private final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+    private final int workers = Integer.getInteger("loadtest.workers", 16);
+    private final Map<Scenario, Integer> mix = parseMix(System.getProperty("loadtest.mix", "browse=50,add=30,update=10,checkout=10"));
+
+    private final ConcurrentMap<String, OperationStats> stats = new ConcurrentHashMap<>();
+    private final Map<Scenario, LongAdder> sessionsByScenario = new EnumMap<>(Scenario.class);
+    private final LongAdder droppedSessions = new LongAdder();
+    // Unlike the stats, counted over the whole run, warmup included
+    private final LongAdder failedRequests = new LongAdder();
+    private final AtomicInteger negativeStockSamples = new AtomicInteger();
+    private final AtomicInteger transportFailures = new AtomicInteger();
+    private volatile RuntimeException firstTransportFailure;
+    private int firstBookId;
+    private int firstCustomerId;
+
+    private LoadTest() {
+        for (Scenario scenario : Scenario.values()) {
+            sessionsByScenario.put(scenario, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Logging every request would make the console the bottleneck; set the property to measure it anyway
+        if (System.getProperty(LOG_SAMPLE_RATE_PROPERTY) == null) {
+            System.setProperty(LOG_SAMPLE_RATE_PROPERTY, "0");
+        }
+        boolean passed = new LoadTest().run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    // Method to run the load test and print its report, returning whether every check passed
+    private boolean run() throws Exception {
+        firstBookId = Fixtures.seedCatalog(books, stockPerBook);
+        firstCustomerId = Fixtures.seedCustomers(customers);
+
+        TestContainer container = new InMemoryTestContainerFactory()
+                .create(URI.create("http://localhost/api/"), DeploymentContext.newInstance(new Application()));
+        container.start();
+        Client client = ClientBuilder.newClient(container.getClientConfig()).register(JacksonFeature.class);
+        WebTarget api = client.target(container.getBaseUri());
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workers * 64));
+        ScheduledExecutorService stockSampler = Executors.newSingleThreadScheduledExecutor();
+        stockSampler.scheduleAtFixedRate(this::sampleStock, STOCK_SAMPLE_MILLIS, STOCK_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+        System.out.printf(Locale.ROOT, "Running %d s after %d s of warmup at %.0f sessions/s: %d customers, %d books with %d each (%d hot), %d workers, mix %s%n",
+                durationSeconds, warmupSeconds, arrivalRate, customers, books, stockPerBook, hotBooks, workers, mix);
+        long startNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long dueNanos = System.nanoTime();
+        boolean warm = warmupSeconds == 0;
+        while (dueNanos < endNanos) {
+            if (!warm && dueNanos >= startNanos) {
+                // Sessions still running from the warmup are counted in the measurement
+                resetStats();
+                warm = true;
+            }
+            LockSupport.parkNanos(dueNanos - System.nanoTime());
+            long arrival = dueNanos;
+            Scenario.Session session = new Scenario.Session(this, api, firstCustomerId + ThreadLocalRandom.current().nextInt(customers));
+            Scenario scenario = pickScenario();
+            try {
+                pool.execute(() -> {
+                    scenario.run(session);
+                    sessionsByScenario.get(scenario).increment();
+                    record(SESSION, arrival, 200);
+                });
+            } catch (RejectedExecutionException e) {
+                droppedSessions.increment();
+            }
+            // Exponentially distributed gaps make the arrivals a Poisson process
+            dueNanos += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) / arrivalRate * 1e9);
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        stockSampler.shutdownNow();
+        sampleStock();
+
+        client.close();
+        container.stop();
+        return report(elapsedSeconds);
+    }
+
+    private void resetStats() {
+        stats.clear();
+        for (LongAdder sessions : sessionsByScenario.values()) {
+            sessions.reset();
+        }
+        droppedSessions.reset();
+    }
+
+    // Picks a book id, mostly among the hot books
+    int pickBook() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int range = random.nextDouble() < HOT_SHARE ? hotBooks : books;
+        return firstBookId + random.nextInt(range);
+    }
+
+    void record(String operation, long startNanos, int status) {
+        if (!stats.computeIfAbsent(operation, OperationStats::new).record(startNanos, status)) {
+            failedRequests.increment();
+        }
+    }
+
+    void transportFailure(RuntimeException e) {
+        if (transportFailures.getAndIncrement() == 0) {
+            firstTransportFailure = e;
+        }
+    }
+
+    private Scenario pickScenario() {
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Scenario, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private void sampleStock() {
+        for (int i = 0; i < books; i++) {
+            if (InventoryData.getAvailable(firstBookId + i) < 0) {
+                negativeStockSamples.incrementAndGet();
+            }
+        }
+    }
+
+    // Method to print throughput, latencies and the invariant checks, returning whether all checks passed
+    private boolean report(double elapsedSeconds) {
+        OperationStats sessions = stats.computeIfAbsent(SESSION, OperationStats::new);
+        System.out.printf(Locale.ROOT, "%nSessions: %d completed, %d dropped in %.1f s%n",
+                sessions.latency.getCount(), droppedSessions.sum(), elapsedSeconds);
+        for (Map.Entry<Scenario, LongAdder> entry : sessionsByScenario.entrySet()) {
+            System.out.printf(Locale.ROOT, "  %-16s %d%n", entry.getKey().key, entry.getValue().sum());
+        }
+        System.out.printf(Locale.ROOT, "%n%-42s %10s %10s %8s %8s %10s %10s %10s %10s%n",
+                "Operation", "count", "ops/s", "4xx", "failed", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        List<OperationStats> operations = new ArrayList<>(stats.values());
+        operations.sort((a, b) -> a.name.compareTo(b.name));
+        for (OperationStats operation : operations) {
+            Histogram latency = operation.latency;
+            System.out.printf(Locale.ROOT, "%-42s %10d %10.0f %8d %8d %10.3f %10.3f %10.3f %10.3f%n",
+                    operation.name, latency.getCount(), latency.getCount() / elapsedSeconds,
+                    operation.rejected.sum(), operation.failed.sum(),
+                    latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3,
+                    latency.getPercentile(99.9) / 1e3, latency.getMax() / 1e3);
+        }
+
+        System.out.println();
+        boolean passed = check("stock never negative", negativeStockSamples.get() == 0,
+                negativeStockSamples.get() + " negative samples");
+        String conservation = checkConservation();
+        passed &= check("stock + carted + ordered = initial stock", conservation == null, conservation);
+        passed &= check("no server errors", failedRequests.sum() == 0, failedRequests.sum() + " failed requests"
+                + (firstTransportFailure != null ? ", first without a response: " + firstTransportFailure : ""));
+        return passed;
+    }
+
+    // Returns a description of the first book whose units do not add up, or null if all do
+    private String checkConservation() {
+        long[] carted = new long[books];
+        long[] ordered = new long[books];
+        long orderCount = 0;
+        for (int i = 0; i < customers; i++) {
+            int customerId = firstCustomerId + i;
+            Cart cart = CartData.findCartByCustomerId(customerId);
+            if (cart != null) {
+                for (CartItem item : cart.getItems()) {
+                    carted[item.getBookId() - firstBookId] += item.getQuantity();
+                }
+            }
+            for (Order order : OrderData.findOrdersByCustomerId(customerId)) {
+                orderCount++;
+                for (int line = 0; line < order.getLineCount(); line++) {
+                    ordered[order.getBookId(line) - firstBookId] += order.getQuantity(line);
+                }
+            }
+        }
+        long totalCarted = 0;
+        long totalOrdered = 0;
+        String mismatch = null;
+        for (int i = 0; i < books; i++) {
+            long available = InventoryData.getAvailable(firstBookId + i);
+            totalCarted += carted[i];
+            totalOrdered += ordered[i];
+            if (mismatch == null && available + carted[i] + ordered[i] != stockPerBook) {
+                mismatch = String.format(Locale.ROOT, "book %d: %d available + %d carted + %d ordered != %d",
+                        firstBookId + i, available, carted[i], ordered[i], stockPerBook);
+            }
+        }
+        System.out.printf(Locale.ROOT, "Units: %d in carts, %d ordered in %d orders, of %d%n",
+                totalCarted, totalOrdered, orderCount, (long) books * stockPerBook);
+        return mismatch;
+    }
+
+    private static boolean check(String name, boolean passed, String detail) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name + (passed ? "" : ": " + detail));
+        return passed;
+    }
+
+    private static Map<Scenario, Integer> parseMix(String spec) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=");
+            Scenario scenario = null;
+            for (Scenario candidate : Scenario.values()) {
+                if (candidate.key.equals(parts[0].trim())) {
+                    scenario = candidate;
+                }
+            }
+            if (scenario == null || parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            weights.put(scenario, Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,131 @@
+package com.bookstore.api.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.bookstore.api.data.CartData;
+import com.bookstore.api.model.CartItem;
+import com.bookstore.api.resource.CartResource;
+import com.bookstore.api.resource.LoggingResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add-to-cart throughput under each request logging setup:
+ * <ul>
+ * <li>sync: every request logged, written by the calling thread, as before sampling and the async appender;</li>
+ * <li>async: every request logged, through the bounded, non-blocking async appender of logback.xml;</li>
+ * <li>sampled: one request in a hundred logged, through the async appender;</li>
+ * <li>off: no request logged.</li>
+ * </ul>
+ * Log lines go to a file under java.io.tmpdir rather than the console, so
+ * the benchmark output stays readable; the file is deleted afterwards.
+ * Each benchmark thread shops as a customer of its own, whose cart is
+ * emptied once it holds {@value #CART_LINES} lines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int CART_LINES = 10;
+    private static final String PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @State(Scope.Benchmark)
+    public static class Logging {
+        @Param({"sync", "async", "sampled", "off"})
+        public String logging;
+
+        int firstBookId;
+        Path logFile;
+
+        @Setup
+        public void configure() throws IOException {
+            firstBookId = Fixtures.seedCatalog(CATALOG_SIZE);
+            logFile = Files.createTempFile("bookstore-bench", ".log");
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            context.reset();
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern(PATTERN);
+            encoder.start();
+            FileAppender<ILoggingEvent> file = new FileAppender<>();
+            file.setContext(context);
+            file.setName("FILE");
+            file.setFile(logFile.toString());
+            file.setEncoder(encoder);
+            file.start();
+            Appender<ILoggingEvent> appender = file;
+            if (!"sync".equals(logging)) {
+                // As configured in logback.xml
+                AsyncAppender async = new AsyncAppender();
+                async.setContext(context);
+                async.setName("ASYNC");
+                async.setQueueSize(8192);
+                async.setDiscardingThreshold(0);
+                async.setNeverBlock(true);
+                async.setIncludeCallerData(false);
+                async.addAppender(file);
+                async.start();
+                appender = async;
+            }
+            ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+            root.setLevel(ch.qos.logback.classic.Level.INFO);
+            root.addAppender(appender);
+            double rate = "sampled".equals(logging) ? 0.01 : "off".equals(logging) ? 0 : 1;
+            new LoggingResource().updateSamplingRates(Map.of("*", rate));
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+            Files.deleteIfExists(logFile);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shopper {
+        final CartResource resource = new CartResource();
+        int customerId;
+        int lines;
+
+        @Setup
+        public void register() {
+            customerId = Fixtures.addCustomer("Shopper " + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public Response addItemToCart(Logging logging, Shopper shopper) {
+        if (shopper.lines++ == CART_LINES) {
+            CartData.deleteCart(shopper.customerId);
+            shopper.lines = 1;
+        }
+        int bookId = logging.firstBookId + ThreadLocalRandom.current().nextInt(CATALOG_SIZE);
+        return shopper.resource.addItemToCart(shopper.customerId, new CartItem(bookId, 1));
+    }
+}
@@ -0,0 +1,38 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.metrics.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome counts of one kind of request, or of whole sessions,
+ * during a load test run.
+ */
+final class OperationStats {
+    final String name;
+    // Microseconds
+    final Histogram latency = new Histogram();
+    final LongAdder succeeded = new LongAdder();
+    // 4xx responses: out of stock, empty cart and the like, which the scenarios run into by design
+    final LongAdder rejected = new LongAdder();
+    // 5xx responses and requests that did not get a response at all
+    final LongAdder failed = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    // Method to record one request by its status, or 0 if it got no response; returns false if it failed
+    boolean record(long startNanos, int status) {
+        latency.record((System.nanoTime() - startNanos) / 1_000);
+        if (status >= 200 && status < 400) {
+            succeeded.increment();
+        } else if (status >= 400 && status < 500) {
+            rejected.increment();
+        } else {
+            failed.increment();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.CartData;
+import com.bookstore.api.data.OrderData;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.resource.OrderResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout through OrderResource.createOrder, and order lookup by id.
+ * createOrder needs a cart to turn into an order, so each call first puts
+ * {@link #linesPerOrder} lines in the cart; that part is measured as well.
+ * Each benchmark thread is a customer of its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class OrderBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        // Orders placed up front, so lookups run against a store of this size
+        @Param({"1000", "100000"})
+        public int orderCount;
+
+        @Param({"3"})
+        public int linesPerOrder;
+
+        int firstBookId;
+        int customerId;
+        int firstOrderId;
+
+        @Setup
+        public void seed() {
+            firstBookId = Fixtures.seedCatalog(CATALOG_SIZE);
+            customerId = Fixtures.addCustomer("Regular");
+            OrderResource resource = new OrderResource();
+            for (int i = 0; i < orderCount; i++) {
+                CartData.addItem(customerId, firstBookId + i % CATALOG_SIZE, 1);
+                Order order = (Order) resource.createOrder(customerId, false, null).getEntity();
+                if (i == 0) {
+                    firstOrderId = order.getId();
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shopper {
+        final OrderResource resource = new OrderResource();
+        int customerId;
+
+        @Setup
+        public void register() {
+            customerId = Fixtures.addCustomer("Shopper " + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public Response createOrder(Catalog catalog, Shopper shopper) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < catalog.linesPerOrder; i++) {
+            CartData.addItem(shopper.customerId, catalog.firstBookId + random.nextInt(CATALOG_SIZE), 1);
+        }
+        return shopper.resource.createOrder(shopper.customerId, false, null);
+    }
+
+    @Benchmark
+    public Order findOrderById(Catalog catalog) {
+        // Seeded orders have consecutive ids
+        return OrderData.findOrderById(catalog.customerId,
+                catalog.firstOrderId + ThreadLocalRandom.current().nextInt(catalog.orderCount));
+    }
+}
@@ -0,0 +1,80 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.model.Order;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Heap footprint of the order history: orders with lines packed into an
+ * int array, as stored now, against orders holding a LinkedHashMap of boxed
+ * book ids and quantities, as OrderResource built them before. Each order
+ * has footprint.lines lines (default 3) of books from a catalog of 100,000.
+ * Packed orders also keep the unit price of each line, which the old ones
+ * did not.
+ * <p>
+ * The number of orders is footprint.orders (default 1,000,000). Ten million
+ * orders need a heap of about 4.5 GB, mostly for the old orders, e.g.:
+ * <pre>
+ * java -XX:+UseParallelGC -Xms5g -Xmx5g -Dfootprint.orders=10000000 \
+ *     -cp benchmarks/target/benchmarks.jar com.bookstore.api.benchmark.OrderFootprint
+ * </pre>
+ */
+public final class OrderFootprint {
+    private static final int CATALOG_SIZE = 100_000;
+
+    private OrderFootprint() {
+    }
+
+    // An order as stored before its lines were packed
+    private static final class MapOrder {
+        final int id;
+        final int customerId;
+        final Map<Integer, Integer> items;
+
+        MapOrder(int id, int customerId, Map<Integer, Integer> items) {
+            this.id = id;
+            this.customerId = customerId;
+            this.items = items;
+        }
+    }
+
+    public static void main(String[] args) {
+        int count = Integer.getInteger("footprint.orders", 1_000_000);
+        int lines = Integer.getInteger("footprint.lines", 3);
+        System.out.printf("History of %,d orders of %d lines%n", count, lines);
+        HeapFootprint.report("LinkedHashMap items", HeapFootprint.retainedBytes(() -> {
+            MapOrder[] orders = new MapOrder[count];
+            for (int i = 0; i < count; i++) {
+                Map<Integer, Integer> items = new LinkedHashMap<>();
+                for (int line = 0; line < lines; line++) {
+                    items.put(bookId(i, line), quantity(i, line));
+                }
+                orders[i] = new MapOrder(i + 1, 1 + i % 10_000, items);
+            }
+            return orders;
+        }), count);
+        HeapFootprint.report("Packed lines", HeapFootprint.retainedBytes(() -> {
+            Order[] orders = new Order[count];
+            for (int i = 0; i < count; i++) {
+                Order order = new Order();
+                order.setId(i + 1);
+                order.setCustomerId(1 + i % 10_000);
+                for (int line = 0; line < lines; line++) {
+                    order.addItem(bookId(i, line), quantity(i, line), 1999);
+                }
+                orders[i] = order;
+            }
+            return orders;
+        }), count);
+    }
+
+    // Distinct books within an order, spread over the catalog
+    private static int bookId(int order, int line) {
+        return 1 + (int) ((order * 7919L + line * 104_729L) % CATALOG_SIZE);
+    }
+
+    private static int quantity(int order, int line) {
+        return 1 + (order + line) % 3;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.CartItem;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The shopping sessions the load test mixes. Each session is one simulated
+ * customer doing one thing, as a short series of requests.
+ */
+enum Scenario {
+    // List a page of the catalog and look at two books
+    BROWSE("browse") {
+        @Override
+        void run(Session session) {
+            session.call(LoadTest.LIST_BOOKS, session.api.path("books").queryParam("limit", 20).request().buildGet());
+            session.call(LoadTest.GET_BOOK, session.book().request().buildGet());
+            session.call(LoadTest.GET_BOOK, session.book().request().buildGet());
+        }
+    },
+    // Look at a book and put one to three of it in the cart
+    ADD_TO_CART("add") {
+        @Override
+        void run(Session session) {
+            int bookId = session.pickBook();
+            session.call(LoadTest.GET_BOOK, session.api.path("books").path(String.valueOf(bookId)).request().buildGet());
+            CartItem item = new CartItem(bookId, 1 + ThreadLocalRandom.current().nextInt(3));
+            session.call(LoadTest.ADD_ITEM, session.cart().path("items").request().buildPost(Entity.json(item)));
+        }
+    },
+    // Open the cart and change the quantity of one of its lines
+    UPDATE_QUANTITY("update") {
+        @Override
+        void run(Session session) {
+            long start = System.nanoTime();
+            List<CartItem> items = List.of();
+            int status = 0;
+            try (Response response = session.cart().request().get()) {
+                status = response.getStatus();
+                if (status == 200) {
+                    items = response.readEntity(Cart.class).getItems();
+                }
+            } catch (RuntimeException e) {
+                session.transportFailure(e);
+            } finally {
+                session.record(LoadTest.GET_CART, start, status);
+            }
+            if (!items.isEmpty()) {
+                CartItem line = items.get(ThreadLocalRandom.current().nextInt(items.size()));
+                CartItem item = new CartItem(line.getBookId(), 1 + ThreadLocalRandom.current().nextInt(5));
+                session.call(LoadTest.UPDATE_ITEM, session.cart().path("items").path(String.valueOf(line.getBookId()))
+                        .request().buildPut(Entity.json(item)));
+            }
+        }
+    },
+    // Turn the cart into an order; an empty cart is rejected with 404
+    CHECKOUT("checkout") {
+        @Override
+        void run(Session session) {
+            session.call(LoadTest.CHECKOUT, session.api.path("customers").path(String.valueOf(session.customerId))
+                    .path("orders").request().buildPost(null));
+        }
+    };
+
+    // Name of the scenario in loadtest.mix
+    final String key;
+
+    Scenario(String key) {
+        this.key = key;
+    }
+
+    abstract void run(Session session);
+
+    // One simulated customer's session
+    static final class Session {
+        final LoadTest test;
+        final WebTarget api;
+        final int customerId;
+
+        Session(LoadTest test, WebTarget api, int customerId) {
+            this.test = test;
+            this.api = api;
+            this.customerId = customerId;
+        }
+
+        int pickBook() {
+            return test.pickBook();
+        }
+
+        WebTarget book() {
+            return api.path("books").path(String.valueOf(pickBook()));
+        }
+
+        WebTarget cart() {
+            return api.path("customers").path(String.valueOf(customerId)).path("cart");
+        }
+
+        void record(String operation, long startNanos, int status) {
+            test.record(operation, startNanos, status);
+        }
+
+        // Method to send a request and record it under the operation, discarding the body
+        void call(String operation, Invocation invocation) {
+            long start = System.nanoTime();
+            int status = 0;
+            try (Response response = invocation.invoke()) {
+                status = response.getStatus();
+            } catch (RuntimeException e) {
+                transportFailure(e);
+            } finally {
+                record(operation, start, status);
+            }
+        }
+
+        void transportFailure(RuntimeException e) {
+            test.transportFailure(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.BookData;
+import com.bookstore.api.data.Page;
+import com.bookstore.api.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a first page of {@value #PAGE_SIZE} search results.
+ * Seeded titles are "Title n" and authors "Author k", so a query for
+ * "title n" matches one title and the books of author n, while "title"
+ * alone matches every book and is the worst case for ranking.
+ * For a multi-million-title catalog pass e.g. -p catalogSize=5000000 and a
+ * large enough heap through -jvmArgsAppend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class SearchBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Setup
+    public void seed() {
+        Fixtures.seedCatalog(catalogSize);
+    }
+
+    @Benchmark
+    public Page<Book> searchRareTerm() {
+        return BookData.searchBooks("title " + ThreadLocalRandom.current().nextInt(catalogSize), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<Book> searchCommonTerm() {
+        return BookData.searchBooks("title", 0, PAGE_SIZE);
+    }
+}
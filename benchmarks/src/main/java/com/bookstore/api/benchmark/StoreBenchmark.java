@@ -0,0 +1,82 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.EntityStore;
+import com.bookstore.api.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the entity stores against the maps they replaced: reads and
+ * writes by id over a store of {@link #size} books. The writes replace
+ * existing entries, so the plain HashMap is never resized under concurrent
+ * writers and stays usable; it is the map the Data classes used before, with
+ * its lost updates. The synchronized HashMap is the least that makes it safe.
+ * Compare the store types across -threads 1,4,16.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class StoreBenchmark {
+
+    @Param({"hashMap", "synchronizedHashMap", "entityStore"})
+    public String store;
+
+    @Param({"100000"})
+    public int size;
+
+    private Map<Integer, Book> map;
+    private EntityStore<Book> entityStore;
+    private Book[] books;
+
+    @Setup
+    public void seed() {
+        books = new Book[size];
+        for (int i = 0; i < size; i++) {
+            books[i] = new Book(i, "Title " + i, 1, String.format("978%010d", i), 1950 + i % 75, 5 + i % 50, 10);
+        }
+        if ("entityStore".equals(store)) {
+            entityStore = new EntityStore<>();
+            for (Book book : books) {
+                entityStore.put(book.getId(), book);
+            }
+        } else {
+            map = new HashMap<>();
+            for (Book book : books) {
+                map.put(book.getId(), book);
+            }
+            if ("synchronizedHashMap".equals(store)) {
+                map = Collections.synchronizedMap(map);
+            }
+        }
+    }
+
+    @Benchmark
+    public Book get() {
+        int id = ThreadLocalRandom.current().nextInt(size);
+        return map != null ? map.get(id) : entityStore.get(id);
+    }
+
+    @Benchmark
+    public Book put() {
+        Book book = books[ThreadLocalRandom.current().nextInt(size)];
+        return map != null ? map.put(book.getId(), book) : entityStore.put(book.getId(), book);
+    }
+}
@@ -0,0 +1,92 @@
+package com.bookstore.api.benchmark;
+
+import com.bookstore.api.data.AuthorData;
+import com.bookstore.api.data.DurabilityMode;
+import com.bookstore.api.data.WriteAheadLog;
+import com.bookstore.api.model.Author;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput under each write-ahead log durability mode, and with the
+ * log off. Every write is an author update, which returns once the log has
+ * made it as durable as the mode requires; each benchmark thread updates an
+ * author of its own. The log is written to a fresh directory under
+ * java.io.tmpdir, so point that at the disk to be measured, e.g.
+ * -jvmArgsAppend -Djava.io.tmpdir=/data/tmp. Concurrent writers share fsyncs,
+ * so compare the modes across -threads 1,4,16.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dbookstore.log.sampleRate=0")
+public class WalBenchmark {
+    // Batch window and async flush interval, as defaulted by WriteAheadLog.start()
+    private static final long BATCH_MILLIS = 2;
+    private static final long ASYNC_FLUSH_MILLIS = 200;
+
+    @State(Scope.Benchmark)
+    public static class Log {
+        // A DurabilityMode, or OFF to run without the log
+        @Param({"OFF", "PER_WRITE", "BATCHED", "ASYNC"})
+        public String durability;
+
+        Path directory;
+
+        @Setup
+        public void open() throws IOException {
+            if ("OFF".equals(durability)) {
+                return;
+            }
+            directory = Files.createTempDirectory("bookstore-wal-bench");
+            // No scheduled snapshots, so only appends and fsyncs are measured
+            WriteAheadLog.start(directory, DurabilityMode.valueOf(durability), BATCH_MILLIS, ASYNC_FLUSH_MILLIS, 0);
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            if (directory == null) {
+                return;
+            }
+            WriteAheadLog.stop();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        Author author;
+
+        @Setup
+        public void register(Log log) {
+            author = AuthorData.addAuthor(new Author(0, "Writer " + Thread.currentThread().getId(), "Biography"));
+        }
+    }
+
+    @Benchmark
+    public Author updateAuthor(Log log, Writer writer) {
+        return AuthorData.updateAuthor(writer.author);
+    }
+}
@@ -0,0 +1,62 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.benchmark.HeapFootprint;
+import com.bookstore.api.model.Book;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Heap footprint of the book catalog stores, against the
+ * HashMap&lt;Integer, Book&gt; the catalog used before: the same generated
+ * books are stored in each, and the heap they retain is measured after a
+ * full collection. Indexes kept by BookData on top of the store are not
+ * included. It lives in the data package to reach the package-private
+ * ColumnarBookStore.
+ * <p>
+ * The catalog size is footprint.books (default 1,000,000). Ten million books
+ * need a heap of about 4.5 GB, mostly for the HashMap, e.g.:
+ * <pre>
+ * java -XX:+UseParallelGC -Xms5g -Xmx5g -Dfootprint.books=10000000 \
+ *     -cp benchmarks/target/benchmarks.jar com.bookstore.api.data.CatalogFootprint
+ * </pre>
+ */
+public final class CatalogFootprint {
+
+    private CatalogFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int count = Integer.getInteger("footprint.books", 1_000_000);
+        // Load the store classes, and with them logging, before anything is measured
+        new ColumnarBookStore().put(1, book(1));
+        System.out.printf("Catalog of %,d books%n", count);
+        HeapFootprint.report("HashMap<Integer, Book>", HeapFootprint.retainedBytes(() -> {
+            Map<Integer, Book> books = new HashMap<>();
+            for (int id = 1; id <= count; id++) {
+                books.put(id, book(id));
+            }
+            return books;
+        }), count);
+        HeapFootprint.report("EntityStore<Book>", HeapFootprint.retainedBytes(() -> {
+            Store<Book> books = new EntityStore<>();
+            for (int id = 1; id <= count; id++) {
+                books.put(id, book(id));
+            }
+            return books;
+        }), count);
+        HeapFootprint.report("ColumnarBookStore", HeapFootprint.retainedBytes(() -> {
+            Store<Book> books = new ColumnarBookStore();
+            for (int id = 1; id <= count; id++) {
+                books.put(id, book(id));
+            }
+            return books;
+        }), count);
+    }
+
+    // Titles and ISBNs are distinct strings, as they would be when read from requests
+    private static Book book(int id) {
+        return new Book(id, "The Collected Works, Volume " + id, 1 + id / 20, "978" + (1_000_000_000L + id),
+                1950 + id % 75, 5 + id % 50, 10);
+    }
+}
@@ -1,5 +1,6 @@
 package com.bookstore.api.config;
 
+import com.bookstore.api.metrics.RequestMetricsListener;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
@@ -13,6 +14,12 @@ public class Application extends ResourceConfig {
         packages("com.bookstore.api.resource", "com.bookstore.api.exception.mapper");
         //Enable Jackson from JSON
         register(JacksonFeature.class);
+        //Share one configured ObjectMapper between Jackson and the resources
+        register(ObjectMapperProvider.class);
+        //Replay and close the write-ahead log with the container
+        register(PersistenceLifecycleListener.class);
+        //Record latency and response counts per resource method and exception mapper
+        register(RequestMetricsListener.class);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.bookstore.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Supplies the application's one ObjectMapper to Jersey's JSON provider.
+ * Code that reads or writes JSON itself, such as NDJSON imports, streamed
+ * listings and error bodies, derives its readers and writers from the same
+ * mapper, so every body is (de)serialized with the same configuration.
+ */
+@Provider
+public class ObjectMapperProvider implements ContextResolver<ObjectMapper> {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Method to get the shared mapper outside of Jersey's providers
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return MAPPER;
+    }
+}
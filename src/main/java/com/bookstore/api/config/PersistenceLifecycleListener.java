@@ -0,0 +1,30 @@
+package com.bookstore.api.config;
+
+import com.bookstore.api.data.CartExpiry;
+import com.bookstore.api.data.CheckoutPipeline;
+import com.bookstore.api.data.WriteAheadLog;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/**
+ * Replays the write-ahead log before the container serves its first request
+ * and closes it cleanly when the application is undeployed, after queued
+ * checkouts have been completed.
+ */
+public class PersistenceLifecycleListener implements ContainerLifecycleListener {
+    @Override
+    public void onStartup(Container container) {
+        WriteAheadLog.start();
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        CartExpiry.stop();
+        CheckoutPipeline.stop();
+        WriteAheadLog.stop();
+    }
+}
@@ -1,22 +1,19 @@
 package com.bookstore.api.data;
 
+import com.bookstore.api.exception.PreconditionFailedException;
 import com.bookstore.api.model.Author;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class AuthorData {
-    private static final Map<Integer, Author> authors = new HashMap<>();
-    private static final AtomicInteger idGenerator = new AtomicInteger(1);
+    private static final EntityStore<Author> authors = new EntityStore<>(EntityCodec.AUTHOR);
 
     // --- Author methods ---
     public static Author addAuthor(Author author) {
-        int id = idGenerator.getAndIncrement();
+        int id = authors.nextId();
         author.setId(id);
-        authors.put(id, author);
+        storeAuthor(author, null);
         return author;
     }
 
@@ -27,23 +24,73 @@ public class AuthorData {
 
     // Method to get all authors
     public static List<Author> getAllAuthors() {
-        return new ArrayList<>(authors.values());
+        return authors.values();
+    }
+
+    // Method to iterate over all authors without copying them, e.g. for streaming responses
+    public static Collection<Author> viewAllAuthors() {
+        return authors.view();
+    }
+
+    // Method to get a page of authors ordered by ID, starting after the given ID
+    public static Page<Author> getAuthorsPage(Integer afterId, int limit) {
+        return authors.page(afterId, limit);
     }
 
     // Method to update an author
     public static Author updateAuthor(Author author) {
-        authors.put(author.getId(), author);
+        return updateAuthor(author, null);
+    }
+
+    // Method to update an author only if it is still at the expected version (null to skip the check)
+    public static Author updateAuthor(Author author, Long expectedVersion) {
+        storeAuthor(author, expectedVersion);
         return author;
     }
 
     // Method to delete an author
     public static void deleteAuthor(int id) {
         // Check if author has associated books
-        boolean hasBooks = BookData.getAllBooks().stream()
-                .anyMatch(book -> book.getAuthorId() == id);
-        if (hasBooks) {
+        if (BookData.hasBooksByAuthor(id)) {
             throw new IllegalStateException("Cannot delete author with ID " + id + " because they have associated books.");
         }
-        authors.remove(id);
+        removeAuthor(id);
+    }
+
+    // Method to re-apply an author read back from disk
+    static void restoreAuthor(Author author) {
+        authors.advanceIdPast(author.getId());
+        storeAuthor(author, null);
+    }
+
+    // Method to re-apply an author deletion read back from disk
+    static void restoreAuthorDeletion(int id) {
+        removeAuthor(id);
+    }
+
+    // compute() serializes writers of the same author, so the version check and bump are atomic
+    private static void storeAuthor(Author author, Long expectedVersion) {
+        authors.compute(author.getId(), (id, previous) -> {
+            if (expectedVersion != null && (previous == null || previous.getVersion() != expectedVersion)) {
+                throw new PreconditionFailedException("Author with ID " + id + " has been modified since this version was read.");
+            }
+            author.setVersion(previous != null ? previous.getVersion() + 1 : 1);
+            SearchIndex.updateAuthorName(id, previous != null ? previous.getName() : null, author.getName());
+            return author;
+        });
+    }
+
+    private static void removeAuthor(int id) {
+        authors.compute(id, (key, existing) -> {
+            if (existing != null) {
+                SearchIndex.updateAuthorName(key, existing.getName(), null);
+            }
+            return null;
+        });
+    }
+
+    // Method to expose the backing store to the snapshot writer
+    static EntityStore<Author> store() {
+        return authors;
     }
-}
\ No newline at end of file
+}
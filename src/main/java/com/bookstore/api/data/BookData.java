@@ -1,23 +1,44 @@
 package com.bookstore.api.data;
 
 import com.bookstore.api.exception.InvalidInputException;
+import com.bookstore.api.exception.PreconditionFailedException;
 import com.bookstore.api.model.Book;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 public class BookData {
-    private static final Map<Integer, Book> books = new HashMap<>();
-    private static final AtomicInteger idGenerator = new AtomicInteger(1);
+    // Set to "columnar" to keep the catalog in primitive columns instead of one object per book
+    public static final String CATALOG_PROPERTY = "bookstore.catalog";
+
+    private static final Store<Book> books = "columnar".equalsIgnoreCase(System.getProperty(CATALOG_PROPERTY))
+            ? new ColumnarBookStore()
+            : new EntityStore<>(EntityCodec.BOOK);
+    // Secondary index: authorId -> ids of that author's books; authors without books have no entry
+    private static final ConcurrentMap<Integer, Set<Integer>> bookIdsByAuthor = new ConcurrentHashMap<>();
+    // Unique index: normalized ISBN-13 -> book id
+    private static final ConcurrentMap<String, Integer> bookIdsByIsbn = new ConcurrentHashMap<>();
+    // Range indexes of (price in cents, id) and (publication year, id), each packed as value << 32 | id
+    private static final NavigableSet<Long> priceIndex = new ConcurrentSkipListSet<>();
+    private static final NavigableSet<Long> yearIndex = new ConcurrentSkipListSet<>();
 
     // --- Book methods ---
     public static Book addBook(Book book) {
-        int id = idGenerator.getAndIncrement();
+        int id = books.nextId();
         book.setId(id);
-        books.put(id, book);
+        storeBook(book, null, true);
+        InventoryData.setStock(id, book.getStock());
         return book;
     }
 
@@ -26,20 +47,225 @@ public class BookData {
         return books.get(id);
     }
 
+    // Method to create a book, or to update the book with the same ISBN; returns true if it was created
+    public static boolean upsertBookByIsbn(Book book) {
+        Book existing = findBookByIsbn(book.getIsbn());
+        if (existing == null) {
+            addBook(book);
+            return true;
+        }
+        book.setId(existing.getId());
+        updateBook(book);
+        return false;
+    }
+
+    // Method to run a group of book writes, waiting for them to be durable once at the end instead of after each
+    public static void runBatch(Runnable writes) {
+        WriteAheadLog.runBatched(writes);
+    }
+
+    // Method to find a book by ISBN, in either ISBN-10 or ISBN-13 form, with or without hyphens
+    public static Book findBookByIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        Integer id = bookIdsByIsbn.get(normalizeIsbn(isbn));
+        return id != null ? books.get(id) : null;
+    }
+
+    // Method to find a private copy of a book whose version also covers its stock, e.g. for an ETag.
+    // The stock and its version are read together, so the copy never pairs a version with a different stock.
+    public static Book findVersionedBookById(int id) {
+        Book book = books.get(id);
+        if (book == null) {
+            return null;
+        }
+        long stock = InventoryData.getVersionedStock(id);
+        Book copy = new Book(book.getId(), book.getTitle(), book.getAuthorId(), book.getIsbn(),
+                book.getPublicationYear(), book.getPrice(), InventoryData.stockOf(stock));
+        copy.setVersion(combineVersions(book.getVersion(), InventoryData.versionOf(stock)));
+        return copy;
+    }
+
     // Method to get all books
     public static List<Book> getAllBooks() {
-        return new ArrayList<>(books.values());
+        return books.values();
+    }
+
+    // Method to iterate over all books without copying them, e.g. for streaming responses
+    public static Collection<Book> viewAllBooks() {
+        return books.view();
+    }
+
+    // Method to get a page of books ordered by ID, starting after the given ID
+    public static Page<Book> getBooksPage(Integer afterId, int limit) {
+        return books.page(afterId, limit);
+    }
+
+    // Method to find all books by an author, in time proportional to the number of their books
+    public static List<Book> findBooksByAuthorId(int authorId) {
+        List<Book> result = new ArrayList<>();
+        Set<Integer> ids = bookIdsByAuthor.get(authorId);
+        if (ids != null) {
+            for (Integer id : ids) {
+                Book book = books.get(id);
+                if (book != null) {
+                    result.add(book);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Method to get a page of the books within the filter's bounds, in the given order.
+    // The range of the sort field is scanned in order. When the other field is bounded too, its range is
+    // walked in step with the scan; if it runs out first it is the smaller one, and the page is built from it
+    // instead. Either way the cost follows the page or the smaller range rather than the catalog.
+    // The cursor is the index key of the last book returned.
+    public static Page<Book> getBooksPage(BookFilter filter, BookSort sort, Long afterKey, int limit) {
+        long[] bounds = sort.byPrice() ? priceBounds(filter) : yearBounds(filter);
+        long low = bounds[0];
+        long high = bounds[1];
+        // Narrow the range to the keys after the cursor, in the direction of the sort
+        boolean lowInclusive = true;
+        boolean highInclusive = true;
+        if (afterKey != null && sort.descending() && afterKey <= high) {
+            high = afterKey;
+            highInclusive = false;
+        } else if (afterKey != null && !sort.descending() && afterKey >= low) {
+            low = afterKey;
+            lowInclusive = false;
+        }
+        NavigableSet<Long> index = sort.byPrice() ? priceIndex : yearIndex;
+        NavigableSet<Long> range = low < high || (low == high && lowInclusive && highInclusive)
+                ? index.subSet(low, lowInclusive, high, highInclusive)
+                : Collections.emptyNavigableSet();
+        boolean otherBounded = sort.byPrice()
+                ? filter.getFromYear() != null || filter.getToYear() != null
+                : filter.hasPriceBound();
+        NavigableSet<Long> otherRange = null;
+        if (otherBounded) {
+            long[] otherBounds = sort.byPrice() ? yearBounds(filter) : priceBounds(filter);
+            otherRange = otherBounds[0] <= otherBounds[1]
+                    ? (sort.byPrice() ? yearIndex : priceIndex).subSet(otherBounds[0], true, otherBounds[1], true)
+                    : Collections.emptyNavigableSet();
+        }
+        Iterator<Long> otherKeys = otherRange != null ? otherRange.iterator() : null;
+
+        Iterator<Long> keys = sort.descending() ? range.descendingIterator() : range.iterator();
+        List<Book> items = new ArrayList<>(Math.min(limit, 256));
+        long lastKey = 0;
+        while (items.size() < limit && keys.hasNext()) {
+            if (otherKeys != null) {
+                if (!otherKeys.hasNext()) {
+                    return pageOfRange(otherRange, filter, sort, afterKey, limit);
+                }
+                otherKeys.next();
+            }
+            long key = keys.next();
+            Book book = books.get((int) key);
+            // The book may have changed since the key was read, so the filter is always re-checked
+            if (book != null && filter.matches(book)) {
+                items.add(book);
+                lastKey = key;
+            }
+        }
+        boolean hasMore = items.size() == limit && keys.hasNext();
+        return new Page<>(items, hasMore ? String.valueOf(lastKey) : null);
+    }
+
+    // Builds a page from every book in a range of the other field's index, re-sorted by the sort field
+    private static Page<Book> pageOfRange(NavigableSet<Long> range, BookFilter filter, BookSort sort, Long afterKey, int limit) {
+        TreeMap<Long, Book> matches = new TreeMap<>();
+        for (long key : range) {
+            Book book = books.get((int) key);
+            if (book != null && filter.matches(book)) {
+                long sortKey = sort.byPrice() ? priceKey(book) : yearKey(book);
+                if (afterKey == null || (sort.descending() ? sortKey < afterKey : sortKey > afterKey)) {
+                    matches.put(sortKey, book);
+                }
+            }
+        }
+        NavigableMap<Long, Book> ordered = sort.descending() ? matches.descendingMap() : matches;
+        List<Book> items = new ArrayList<>(Math.min(limit, ordered.size()));
+        long lastKey = 0;
+        for (Map.Entry<Long, Book> entry : ordered.entrySet()) {
+            if (items.size() == limit) {
+                break;
+            }
+            items.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        boolean hasMore = ordered.size() > limit;
+        return new Page<>(items, hasMore ? String.valueOf(lastKey) : null);
+    }
+
+    // Lowest and highest price index keys within the filter's price bounds, both inclusive
+    private static long[] priceBounds(BookFilter filter) {
+        return new long[] {
+                filter.getMinPrice() != null ? indexKey(toCents(filter.getMinPrice()), 0) : Long.MIN_VALUE,
+                filter.getMaxPrice() != null ? indexKey(toCents(filter.getMaxPrice()), -1) : Long.MAX_VALUE};
+    }
+
+    // Lowest and highest year index keys within the filter's year bounds, both inclusive
+    private static long[] yearBounds(BookFilter filter) {
+        return new long[] {
+                filter.getFromYear() != null ? indexKey(filter.getFromYear(), 0) : Long.MIN_VALUE,
+                filter.getToYear() != null ? indexKey(filter.getToYear(), -1) : Long.MAX_VALUE};
+    }
+
+    // Method to search titles and author names; returns one page of the ranked matches, starting at offset
+    public static Page<Book> searchBooks(String query, int offset, int limit) {
+        return SearchIndex.search(query, offset, limit);
+    }
+
+    // Method to get the live set of ids of an author's books (empty if none)
+    static Set<Integer> bookIdsOfAuthor(int authorId) {
+        return bookIdsByAuthor.getOrDefault(authorId, Collections.emptySet());
+    }
+
+    // Method to check whether an author has any books
+    public static boolean hasBooksByAuthor(int authorId) {
+        return bookIdsByAuthor.containsKey(authorId);
     }
 
     // Method to update a book
     public static Book updateBook(Book book) {
-        books.put(book.getId(), book);
+        return updateBook(book, null);
+    }
+
+    // Method to update a book only if it is still at the version from findVersionedBookById (null to skip the check)
+    public static Book updateBook(Book book, Long expectedVersion) {
+        storeBook(book, expectedVersion, true);
+        InventoryData.setStock(book.getId(), book.getStock());
         return book;
     }
 
     // Method to delete a book
     public static void deleteBook(int id) {
-        books.remove(id);
+        books.compute(id, (key, existing) -> {
+            if (existing != null) {
+                unindexAuthor(existing.getAuthorId(), key);
+                releaseIsbn(existing.getIsbn(), key);
+                priceIndex.remove(priceKey(existing));
+                yearIndex.remove(yearKey(existing));
+                SearchIndex.updateTitle(key, existing.getTitle(), null);
+            }
+            return null;
+        });
+        InventoryData.removeStock(id);
+    }
+
+    // Method to re-apply a book read back from disk; its stock comes from the stock records
+    static void restoreBook(Book book) {
+        books.advanceIdPast(book.getId());
+        // Books logged before ISBNs were unique must still load, so duplicates are tolerated here
+        storeBook(book, null, false);
+    }
+
+    // Method to re-apply a book deletion read back from disk
+    static void restoreBookDeletion(int id) {
+        deleteBook(id);
     }
 
     // Method to update the stock of a book
@@ -51,7 +277,148 @@ public class BookData {
         if (newStock < 0) {
             throw new InvalidInputException("Cannot update stock: stock cannot be negative for book ID " + bookId + ".");
         }
-        book.setStock(newStock);
-        books.put(bookId, book);
+        InventoryData.setStock(bookId, newStock);
+    }
+
+    // Method to publish a stock value to the stored book; returns false if the book does not exist
+    static boolean publishStock(int bookId, int stock) {
+        if (books instanceof ColumnarBookStore columnar) {
+            return columnar.setStock(bookId, stock);
+        }
+        Book book = books.get(bookId);
+        if (book == null) {
+            return false;
+        }
+        book.setStock(stock);
+        return true;
+    }
+
+    // compute() serializes writers of the same book, keeping the author index in step
+    // and making the ISBN claim and the version check and bump atomic
+    private static void storeBook(Book book, Long expectedVersion, boolean uniqueIsbn) {
+        books.compute(book.getId(), (id, previous) -> {
+            if (expectedVersion != null && (previous == null
+                    || combineVersions(previous.getVersion(), InventoryData.getVersion(id)) != expectedVersion)) {
+                throw new PreconditionFailedException("Book with ID " + id + " has been modified since this version was read.");
+            }
+            claimIsbn(book.getIsbn(), id, uniqueIsbn);
+            if (previous != null && !sameIsbn(previous.getIsbn(), book.getIsbn())) {
+                releaseIsbn(previous.getIsbn(), id);
+            }
+            book.setVersion(previous != null ? previous.getVersion() + 1 : 1);
+            if (previous != null && previous.getAuthorId() != book.getAuthorId()) {
+                unindexAuthor(previous.getAuthorId(), id);
+            }
+            indexAuthor(book.getAuthorId(), id);
+            if (previous != null) {
+                priceIndex.remove(priceKey(previous));
+                yearIndex.remove(yearKey(previous));
+            }
+            priceIndex.add(priceKey(book));
+            yearIndex.add(yearKey(book));
+            SearchIndex.updateTitle(id, previous != null ? previous.getTitle() : null, book.getTitle());
+            return book;
+        });
+    }
+
+    // Reserves the ISBN for the book; fails if another book holds it, unless unique is false
+    private static void claimIsbn(String isbn, int bookId, boolean unique) {
+        if (isbn == null) {
+            return;
+        }
+        Integer owner = bookIdsByIsbn.putIfAbsent(normalizeIsbn(isbn), bookId);
+        if (owner != null && owner != bookId && unique) {
+            throw new InvalidInputException("A book with ISBN " + isbn + " already exists.");
+        }
+    }
+
+    private static void releaseIsbn(String isbn, int bookId) {
+        if (isbn != null) {
+            bookIdsByIsbn.remove(normalizeIsbn(isbn), bookId);
+        }
+    }
+
+    private static boolean sameIsbn(String a, String b) {
+        return a == null ? b == null : b != null && normalizeIsbn(a).equals(normalizeIsbn(b));
+    }
+
+    // Strips hyphens and spaces and converts ISBN-10 to ISBN-13, so both forms of a book share one key.
+    // Values that are not ISBN-10 are only stripped and upper-cased.
+    static String normalizeIsbn(String isbn) {
+        StringBuilder compact = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) {
+                compact.append(Character.toUpperCase(c));
+            }
+        }
+        if (compact.length() != 10 || !isIsbn10(compact)) {
+            return compact.toString();
+        }
+        StringBuilder isbn13 = new StringBuilder(13).append("978").append(compact, 0, 9);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (isbn13.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return isbn13.append((10 - sum % 10) % 10).toString();
+    }
+
+    private static boolean isIsbn10(CharSequence isbn) {
+        for (int i = 0; i < 9; i++) {
+            if (isbn.charAt(i) < '0' || isbn.charAt(i) > '9') {
+                return false;
+            }
+        }
+        char check = isbn.charAt(9);
+        return (check >= '0' && check <= '9') || check == 'X';
+    }
+
+    private static long priceKey(Book book) {
+        return indexKey(toCents(book.getPrice()), book.getId());
+    }
+
+    private static long yearKey(Book book) {
+        return indexKey(book.getPublicationYear(), book.getId());
+    }
+
+    // The indexed value in the high half and the id in the low half, so keys sort by value, then id.
+    // An id of -1 gives the largest key for the value.
+    private static long indexKey(long value, int id) {
+        return (value << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // Method to get the current price of a book in cents, e.g. to record it on an order (0 if the book is gone)
+    static int findUnitPriceCents(int bookId) {
+        Book book = books.get(bookId);
+        return book != null ? (int) toCents(book.getPrice()) : 0;
+    }
+
+    private static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    // The book's own version in the high half, its stock version in the low half
+    private static long combineVersions(long bookVersion, int stockVersion) {
+        return (bookVersion << 32) | (stockVersion & 0xFFFFFFFFL);
+    }
+
+    private static void indexAuthor(int authorId, int bookId) {
+        bookIdsByAuthor.compute(authorId, (key, ids) -> {
+            Set<Integer> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            updated.add(bookId);
+            return updated;
+        });
+    }
+
+    private static void unindexAuthor(int authorId, int bookId) {
+        bookIdsByAuthor.computeIfPresent(authorId, (key, ids) -> {
+            ids.remove(bookId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Method to expose the backing store to the snapshot writer
+    static Store<Book> store() {
+        return books;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Book;
+
+/**
+ * Optional price and publication-year bounds for listing books; a null bound
+ * is open. All bounds are inclusive.
+ */
+public class BookFilter {
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Integer fromYear;
+    private final Integer toYear;
+
+    public BookFilter(Double minPrice, Double maxPrice, Integer fromYear, Integer toYear) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Integer getFromYear() {
+        return fromYear;
+    }
+
+    public Integer getToYear() {
+        return toYear;
+    }
+
+    // Whether any bound is set
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null && fromYear == null && toYear == null;
+    }
+
+    // Whether the price has a bound
+    public boolean hasPriceBound() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    // Whether the book lies within every bound
+    public boolean matches(Book book) {
+        return (minPrice == null || book.getPrice() >= minPrice)
+                && (maxPrice == null || book.getPrice() <= maxPrice)
+                && (fromYear == null || book.getPublicationYear() >= fromYear)
+                && (toYear == null || book.getPublicationYear() <= toYear);
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "BookFilter{" +
+                "minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", fromYear=" + fromYear +
+                ", toYear=" + toYear +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.bookstore.api.data;
+
+/**
+ * Orders in which a filtered book listing can be returned; ties are broken by book id.
+ */
+public enum BookSort {
+    PRICE_ASC("price"),
+    PRICE_DESC("-price"),
+    YEAR_ASC("year"),
+    YEAR_DESC("-year");
+
+    private final String parameter;
+
+    BookSort(String parameter) {
+        this.parameter = parameter;
+    }
+
+    // The value of the sort query parameter selecting this order
+    public String getParameter() {
+        return parameter;
+    }
+
+    // Method to find the order for a sort query parameter, or null if there is none
+    public static BookSort fromParameter(String parameter) {
+        for (BookSort sort : values()) {
+            if (sort.parameter.equals(parameter)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+
+    boolean byPrice() {
+        return this == PRICE_ASC || this == PRICE_DESC;
+    }
+
+    boolean descending() {
+        return this == PRICE_DESC || this == YEAR_DESC;
+    }
+}
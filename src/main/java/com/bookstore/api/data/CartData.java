@@ -1,13 +1,19 @@
 package com.bookstore.api.data;
 
+import com.bookstore.api.exception.CartNotFoundException;
 import com.bookstore.api.exception.InvalidInputException;
 import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.CartItem;
+import com.bookstore.api.model.CartOperation;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 public class CartData {
-    private static final Map<Integer, Cart> carts = new HashMap<>();
+    // Stored carts are never changed in place: every change stores a new cart, so readers and snapshots see whole carts
+    private static final EntityStore<Cart> carts = new EntityStore<>(EntityCodec.CART);
 
     // --- Cart methods ---
     public static Cart addCart(Cart cart) {
@@ -15,17 +21,273 @@ public class CartData {
         if (CustomerData.findCustomerById(cart.getCustomerId()) == null) {
             throw new InvalidInputException("Cannot create cart: customer with ID " + cart.getCustomerId() + " does not exist.");
         }
+        long now = System.currentTimeMillis();
+        cart.setLastTouched(now);
         carts.put(cart.getCustomerId(), cart);
+        CartExpiry.touched(cart.getCustomerId(), now);
         return cart;
     }
 
+    // Method to add quantity units of a book to the customer's cart, creating the cart if needed.
+    // The stock is reserved while the cart is locked, so the reservation and the cart change happen together.
+    public static Cart addItem(int customerId, int bookId, int quantity) {
+        long now = System.currentTimeMillis();
+        Cart updated = changeCart(customerId, (key, cart) -> {
+            reserve(bookId, quantity);
+            Cart copy = copyOf(key, cart);
+            copy.setQuantity(bookId, copy.getQuantity(bookId) + quantity);
+            copy.setLastTouched(now);
+            return copy;
+        });
+        CartExpiry.touched(customerId, now);
+        return updated;
+    }
+
+    // Method to set the quantity of a book already in the customer's cart, reserving or releasing the difference
+    public static Cart updateItem(int customerId, int bookId, int quantity) {
+        long now = System.currentTimeMillis();
+        Cart updated = changeCart(customerId, (key, cart) -> {
+            requireItem(key, cart, bookId);
+            int difference = quantity - cart.getQuantity(bookId);
+            if (difference > 0) {
+                reserve(bookId, difference);
+            } else if (difference < 0) {
+                InventoryData.release(bookId, -difference);
+            }
+            Cart copy = copyOf(key, cart);
+            copy.setQuantity(bookId, quantity);
+            copy.setLastTouched(now);
+            return copy;
+        });
+        CartExpiry.touched(customerId, now);
+        return updated;
+    }
+
+    // Method to remove a book from the customer's cart and return its quantity to stock; an emptied cart is deleted
+    public static void removeItem(int customerId, int bookId) {
+        long now = System.currentTimeMillis();
+        Cart updated = changeCart(customerId, (key, cart) -> {
+            requireItem(key, cart, bookId);
+            Cart copy = copyOf(key, cart);
+            InventoryData.release(bookId, copy.removeItem(bookId));
+            if (copy.isEmpty()) {
+                return null;
+            }
+            copy.setLastTouched(now);
+            return copy;
+        });
+        if (updated != null) {
+            CartExpiry.touched(customerId, now);
+        }
+    }
+
+    // Method to apply add/update/remove operations to a cart as one change.
+    // The operations are checked against the cart as it evolves, then the net stock change per book is reserved;
+    // if any operation is invalid or any book lacks stock, everything already reserved is released and the cart is
+    // left untouched. Returns the new cart, or null if it ended up empty.
+    public static Cart applyOperations(int customerId, List<CartOperation> operations) {
+        if (CustomerData.findCustomerById(customerId) == null) {
+            throw new InvalidInputException("Cannot update cart: customer with ID " + customerId + " does not exist.");
+        }
+        long now = System.currentTimeMillis();
+        Cart[] result = new Cart[1];
+        // Stock changes are logged while the cart is locked; their durability is awaited once, after it is released
+        WriteAheadLog.runBatched(() -> result[0] = carts.compute(customerId, (key, cart) -> {
+            Map<Integer, Integer> before = quantities(cart);
+            Map<Integer, Integer> after = new LinkedHashMap<>(before);
+            for (int i = 0; i < operations.size(); i++) {
+                applyOperation(after, operations.get(i), i + 1);
+            }
+            reserveDifference(before, after);
+            if (after.isEmpty()) {
+                return null;
+            }
+            Cart updated = new Cart(key);
+            after.forEach(updated::setQuantity);
+            updated.setLastTouched(now);
+            return updated;
+        }));
+        if (result[0] != null) {
+            CartExpiry.touched(customerId, now);
+        }
+        return result[0];
+    }
+
     //method to find a cart
     public static Cart findCartByCustomerId(int customerId) {
         return carts.get(customerId);
     }
 
+    // Method to remove a cart and return it, so its contents can be used exactly once (null if there was none)
+    public static Cart takeCart(int customerId) {
+        return carts.remove(customerId);
+    }
+
+    // Method to give back a cart taken by a checkout that then failed. Its items are merged into any cart the
+    // customer has started since, keeping their reservations; if the customer is gone they are returned to stock.
+    static void returnCart(Cart taken) {
+        int customerId = taken.getCustomerId();
+        long now = System.currentTimeMillis();
+        Cart[] result = new Cart[1];
+        WriteAheadLog.runBatched(() -> result[0] = carts.compute(customerId, (key, cart) -> {
+            if (CustomerData.findCustomerById(key) == null) {
+                for (CartItem item : taken.getItems()) {
+                    InventoryData.release(item.getBookId(), item.getQuantity());
+                }
+                return cart;
+            }
+            Map<Integer, Integer> merged = quantities(cart);
+            for (CartItem item : taken.getItems()) {
+                merged.merge(item.getBookId(), item.getQuantity(), Integer::sum);
+            }
+            Cart updated = new Cart(key);
+            merged.forEach(updated::setQuantity);
+            updated.setLastTouched(now);
+            return updated;
+        }));
+        if (result[0] != null) {
+            CartExpiry.touched(customerId, now);
+        }
+    }
+
     //method to delete a cart
     public static void deleteCart(int customerId) {
         carts.remove(customerId);
     }
-}
\ No newline at end of file
+
+    // Method to remove a cart that has not been touched since deadline - ttlMillis and return its items to stock.
+    // Returns the expiry deadline of the cart if it is still live, or 0 if it is gone.
+    static long expireIfIdle(int customerId, long now, long ttlMillis) {
+        Cart cart = carts.get(customerId);
+        if (cart == null) {
+            return 0;
+        }
+        if (cart.getLastTouched() + ttlMillis > now) {
+            return cart.getLastTouched() + ttlMillis;
+        }
+        long[] deadline = new long[1];
+        carts.compute(customerId, (key, current) -> {
+            if (current == null) {
+                return null;
+            }
+            // Touched again since it was checked above
+            if (current.getLastTouched() + ttlMillis > now) {
+                deadline[0] = current.getLastTouched() + ttlMillis;
+                return current;
+            }
+            for (CartItem item : current.getItems()) {
+                InventoryData.release(item.getBookId(), item.getQuantity());
+            }
+            CartExpiry.recordExpired(current);
+            return null;
+        });
+        return deadline[0];
+    }
+
+    // Applies a change to a cart under its lock; stock changes are made durable once, after the lock is released
+    private static Cart changeCart(int customerId, BiFunction<Integer, Cart, Cart> change) {
+        Cart[] result = new Cart[1];
+        WriteAheadLog.runBatched(() -> result[0] = carts.compute(customerId, change));
+        return result[0];
+    }
+
+    // Copies a stored cart into a new one that can be changed before it is stored; an absent cart copies as empty
+    private static Cart copyOf(int customerId, Cart cart) {
+        return cart != null ? cart.copy() : new Cart(customerId);
+    }
+
+    private static void requireItem(int customerId, Cart cart, int bookId) {
+        if (cart == null) {
+            throw new CartNotFoundException("Cart for customer ID " + customerId + " does not exist.");
+        }
+        if (!cart.containsItem(bookId)) {
+            throw new InvalidInputException("Cart item with book ID " + bookId + " does not exist in the cart.");
+        }
+    }
+
+    private static void reserve(int bookId, int quantity) {
+        StockReservation reservation = InventoryData.reserve(bookId, quantity);
+        if (!reservation.isReserved()) {
+            throw new InvalidInputException("Invalid cart item: insufficient stock for book ID " + bookId + ". Available: " + reservation.getAvailable());
+        }
+    }
+
+    private static Map<Integer, Integer> quantities(Cart cart) {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        if (cart != null) {
+            for (CartItem item : cart.getItems()) {
+                quantities.merge(item.getBookId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    private static void applyOperation(Map<Integer, Integer> quantities, CartOperation operation, int number) {
+        String prefix = "Invalid cart operation #" + number + ": ";
+        String op = operation.getOp();
+        int bookId = operation.getBookId();
+        if (CartOperation.REMOVE.equalsIgnoreCase(op)) {
+            if (quantities.remove(bookId) == null) {
+                throw new InvalidInputException(prefix + "book ID " + bookId + " is not in the cart.");
+            }
+            return;
+        }
+        boolean add = CartOperation.ADD.equalsIgnoreCase(op);
+        if (!add && !CartOperation.UPDATE.equalsIgnoreCase(op)) {
+            throw new InvalidInputException(prefix + "op must be add, update or remove.");
+        }
+        if (bookId <= 0 || operation.getQuantity() <= 0) {
+            throw new InvalidInputException(prefix + "bookId and quantity must be positive.");
+        }
+        if (BookData.findBookById(bookId) == null) {
+            throw new InvalidInputException(prefix + "book with ID " + bookId + " does not exist.");
+        }
+        if (add) {
+            quantities.merge(bookId, operation.getQuantity(), Integer::sum);
+        } else if (quantities.replace(bookId, operation.getQuantity()) == null) {
+            throw new InvalidInputException(prefix + "book ID " + bookId + " is not in the cart.");
+        }
+    }
+
+    // Reserves every increase and releases every decrease, all or nothing
+    private static void reserveDifference(Map<Integer, Integer> before, Map<Integer, Integer> after) {
+        Map<Integer, Integer> reserved = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : after.entrySet()) {
+            int increase = entry.getValue() - before.getOrDefault(entry.getKey(), 0);
+            if (increase <= 0) {
+                continue;
+            }
+            StockReservation reservation = InventoryData.reserve(entry.getKey(), increase);
+            if (!reservation.isReserved()) {
+                reserved.forEach(InventoryData::release);
+                throw new InvalidInputException("Invalid cart item: insufficient stock for book ID " + entry.getKey() + ". Available: " + reservation.getAvailable());
+            }
+            reserved.put(entry.getKey(), increase);
+        }
+        for (Map.Entry<Integer, Integer> entry : before.entrySet()) {
+            int decrease = entry.getValue() - after.getOrDefault(entry.getKey(), 0);
+            if (decrease > 0) {
+                InventoryData.release(entry.getKey(), decrease);
+            }
+        }
+    }
+
+    // Method to re-apply a cart read back from disk
+    // The last-touched time is not logged, so a restored cart gets a full TTL from the restart
+    static void restoreCart(Cart cart) {
+        long now = System.currentTimeMillis();
+        cart.setLastTouched(now);
+        carts.put(cart.getCustomerId(), cart);
+        CartExpiry.touched(cart.getCustomerId(), now);
+    }
+
+    // Method to re-apply a cart deletion read back from disk
+    static void restoreCartDeletion(int customerId) {
+        carts.remove(customerId);
+    }
+
+    // Method to expose the backing store to the snapshot writer
+    static EntityStore<Cart> store() {
+        return carts;
+    }
+}
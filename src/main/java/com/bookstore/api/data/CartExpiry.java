@@ -0,0 +1,188 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.CartItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expires carts that have not been touched for a configurable time to live,
+ * returning their reserved quantities to stock.
+ * <p>
+ * Live carts are tracked in a hashed timing wheel: a ring of slots, one per
+ * tick, each holding the customer ids whose carts are due in that tick. A
+ * cart is in the wheel at most once. Touching a cart only updates its
+ * timestamp (and inserts it if it is not in the wheel yet), so a touch is
+ * O(1) and never moves entries around. When a slot comes due, each cart in
+ * it is checked against its current timestamp: idle carts are removed and
+ * carts touched since are re-inserted at their new deadline. The worker only
+ * visits due slots, so there is no scan over all carts.
+ * <p>
+ * The time to live is read from the {@value #TTL_PROPERTY} system property in
+ * seconds (default 1800; 0 or less disables expiry) and the tick length from
+ * {@value #TICK_PROPERTY} in milliseconds (default 1000).
+ */
+public final class CartExpiry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartExpiry.class);
+
+    public static final String TTL_PROPERTY = "bookstore.cart.ttlSeconds";
+    public static final String TICK_PROPERTY = "bookstore.cart.expiryTickMillis";
+    private static final int MAX_SLOTS = 1 << 16;
+
+    private static final long TTL_MILLIS = Long.getLong(TTL_PROPERTY, 1800) * 1000;
+    private static final long TICK_MILLIS = Math.max(1, Long.getLong(TICK_PROPERTY, 1000));
+    // Enough slots for a deadline one TTL away to land within one turn of the wheel, where possible
+    private static final Queue<Integer>[] wheel = createWheel(TTL_MILLIS / TICK_MILLIS + 2);
+    private static final int SLOT_MASK = wheel.length - 1;
+    // Customer ids that currently have an entry in the wheel
+    private static final Set<Integer> scheduled = ConcurrentHashMap.newKeySet();
+    private static final LongAdder expiredCarts = new LongAdder();
+    private static final LongAdder releasedUnits = new LongAdder();
+    // The last tick whose slot has been processed; only advanced by the worker
+    private static volatile long currentTick = System.currentTimeMillis() / TICK_MILLIS;
+    private static Thread worker;
+    private static volatile boolean running;
+
+    private CartExpiry() {
+    }
+
+    // Method to stop the expiry worker
+    public static void stop() {
+        Thread current;
+        synchronized (CartExpiry.class) {
+            current = worker;
+            running = false;
+            worker = null;
+        }
+        if (current == null) {
+            return;
+        }
+        current.interrupt();
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Method to get the number of carts expired so far
+    public static long getExpiredCarts() {
+        return expiredCarts.sum();
+    }
+
+    // Method to get the number of units returned to stock by expired carts so far
+    public static long getReleasedUnits() {
+        return releasedUnits.sum();
+    }
+
+    // Called after a cart has been stored with the given last-touched time
+    static void touched(int customerId, long touchedAt) {
+        if (TTL_MILLIS <= 0) {
+            return;
+        }
+        if (scheduled.add(customerId)) {
+            schedule(customerId, touchedAt + TTL_MILLIS);
+            startWorker();
+        }
+    }
+
+    // Called while the expired cart is still locked, after its items have been released
+    static void recordExpired(Cart cart) {
+        expiredCarts.increment();
+        for (CartItem item : cart.getItems()) {
+            releasedUnits.add(item.getQuantity());
+        }
+    }
+
+    private static void schedule(int customerId, long deadline) {
+        // Never into a slot the worker has already passed
+        long tick = Math.max(Math.floorDiv(deadline + TICK_MILLIS - 1, TICK_MILLIS), currentTick + 1);
+        wheel[(int) (tick & SLOT_MASK)].add(customerId);
+    }
+
+    private static synchronized void startWorker() {
+        if (worker != null) {
+            return;
+        }
+        running = true;
+        worker = new Thread(CartExpiry::run, "cart-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static void run() {
+        List<Integer> due = new ArrayList<>();
+        while (running) {
+            long now = System.currentTimeMillis();
+            long nowTick = now / TICK_MILLIS;
+            if (nowTick <= currentTick) {
+                try {
+                    Thread.sleep((currentTick + 1) * TICK_MILLIS - now);
+                } catch (InterruptedException e) {
+                    // stop() clears running before interrupting
+                }
+                continue;
+            }
+            // After a long pause, every slot is due at most once
+            long first = Math.max(currentTick + 1, nowTick - SLOT_MASK);
+            for (long tick = first; tick <= nowTick; tick++) {
+                currentTick = tick;
+                Queue<Integer> slot = wheel[(int) (tick & SLOT_MASK)];
+                for (Integer customerId = slot.poll(); customerId != null; customerId = slot.poll()) {
+                    due.add(customerId);
+                }
+            }
+            currentTick = nowTick;
+            if (!due.isEmpty()) {
+                expire(due, now);
+                due.clear();
+            }
+        }
+    }
+
+    private static void expire(List<Integer> due, long now) {
+        long before = expiredCarts.sum();
+        try {
+            // One durability wait for all stock released in this tick
+            WriteAheadLog.runBatched(() -> {
+                for (int customerId : due) {
+                    scheduled.remove(customerId);
+                    long deadline;
+                    try {
+                        deadline = CartData.expireIfIdle(customerId, now, TTL_MILLIS);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Expiring the cart of customer ID {} failed; retrying next tick", customerId, e);
+                        deadline = now;
+                    }
+                    if (deadline > 0 && scheduled.add(customerId)) {
+                        schedule(customerId, deadline);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("Stock released by expired carts could not be made durable", e);
+        }
+        long expired = expiredCarts.sum() - before;
+        if (expired > 0) {
+            LOGGER.info("Expired {} idle carts", expired);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Queue<Integer>[] createWheel(long ticks) {
+        int slots = (int) Math.min(MAX_SLOTS, Long.highestOneBit(Math.max(2, ticks) - 1) << 1);
+        Queue<Integer>[] queues = (Queue<Integer>[]) new Queue<?>[slots];
+        for (int i = 0; i < slots; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        return queues;
+    }
+}
@@ -0,0 +1,298 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.exception.CartNotFoundException;
+import com.bookstore.api.exception.CheckoutUnavailableException;
+import com.bookstore.api.exception.CustomerNotFoundException;
+import com.bookstore.api.metrics.Histogram;
+import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.CartItem;
+import com.bookstore.api.model.CheckoutStatus;
+import com.bookstore.api.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checkout, either on the caller's thread or queued for a background worker.
+ * <p>
+ * A queued checkout gets its order id immediately, so the client can poll its
+ * status. The worker takes queued checkouts in batches of up to
+ * {@value #MAX_BATCH}; each checkout atomically takes the customer's cart as
+ * it is at that moment and turns it into the order. The durability wait of a
+ * whole batch is shared, so under load the log is synced once per batch rather
+ * than once per order. A checkout only reports COMPLETED once it is durable.
+ * A checkout that fails gives the cart back, and the status of the last
+ * {@value #MAX_FAILED_STATUSES} failed checkouts is kept for polling.
+ * <p>
+ * When the log fails during a batch, the orders of that batch have been
+ * placed and their carts taken, but may be lost on restart; they report
+ * UNKNOWN rather than FAILED or COMPLETED. These statuses are never dropped:
+ * a failed log takes no more writes, so only the batch in flight can end up
+ * this way.
+ */
+public final class CheckoutPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckoutPipeline.class);
+
+    public static final String QUEUE_CAPACITY_PROPERTY = "bookstore.checkout.queueCapacity";
+    private static final int MAX_BATCH = 256;
+    private static final int MAX_FAILED_STATUSES = 10_000;
+
+    private static final BlockingQueue<Task> queue =
+            new LinkedBlockingQueue<>(Integer.getInteger(QUEUE_CAPACITY_PROPERTY, 10_000));
+    // Checkouts that are queued, have failed or are not known to be durable; completed ones are looked up in OrderData
+    private static final ConcurrentMap<Integer, CheckoutStatus> statuses = new ConcurrentHashMap<>();
+    // Order ids of the FAILED statuses, oldest first; only touched by the worker
+    private static final Queue<Integer> failedIds = new ArrayDeque<>();
+    private static final LongAdder submitted = new LongAdder();
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder failed = new LongAdder();
+    private static final LongAdder unknown = new LongAdder();
+    // Time from enqueue until durable, in microseconds
+    private static final Histogram latency = new Histogram();
+    private static final Histogram batchSizes = new Histogram();
+    private static Thread worker;
+    private static volatile boolean running;
+    // Set by stop(); a stopped pipeline takes no more checkouts
+    private static volatile boolean stopped;
+
+    private CheckoutPipeline() {
+    }
+
+    // A queued checkout
+    private static final class Task {
+        final int orderId;
+        final int customerId;
+        final long enqueuedNanos = System.nanoTime();
+        String failure;
+        // Set when the order was placed but the log failed before it was durable
+        boolean notDurable;
+
+        Task(int orderId, int customerId) {
+            this.orderId = orderId;
+            this.customerId = customerId;
+        }
+    }
+
+    // Method to turn the customer's cart into an order on the calling thread
+    public static Order checkout(int customerId) {
+        return checkout(customerId, OrderData.nextOrderId());
+    }
+
+    // Method to queue a checkout; returns its PENDING status, or null if the queue is full
+    public static CheckoutStatus submit(int customerId) {
+        if (!startWorker()) {
+            throw new CheckoutUnavailableException("Checkouts are no longer being accepted.");
+        }
+        int orderId = OrderData.nextOrderId();
+        CheckoutStatus pending = new CheckoutStatus(orderId, customerId, CheckoutStatus.PENDING, null);
+        statuses.put(orderId, pending);
+        Task task = new Task(orderId, customerId);
+        if (!queue.offer(task)) {
+            statuses.remove(orderId);
+            return null;
+        }
+        // Queued while stop() was draining: if the worker has not taken it, it never will
+        if (stopped && queue.remove(task)) {
+            statuses.remove(orderId);
+            throw new CheckoutUnavailableException("Checkouts are no longer being accepted.");
+        }
+        submitted.increment();
+        return pending;
+    }
+
+    // Method to find the status of a checkout of the customer, or null if there is none
+    public static CheckoutStatus getStatus(int customerId, int orderId) {
+        CheckoutStatus status = statuses.get(orderId);
+        if (status != null) {
+            return status.getCustomerId() == customerId ? status : null;
+        }
+        // Orders are stored before their pending status is dropped, so a completed checkout is always found here
+        if (OrderData.findOrderById(customerId, orderId) != null) {
+            return new CheckoutStatus(orderId, customerId, CheckoutStatus.COMPLETED, null);
+        }
+        return null;
+    }
+
+    // Method to get queue depth, throughput counters, batch sizes and latency percentiles
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("unknown", unknown.sum());
+        stats.put("batches", batchSizes.getCount());
+        stats.put("meanBatchSize", batchSizes.getMean());
+        stats.put("maxBatchSize", batchSizes.getMax());
+        Map<String, Object> latencyMicros = new LinkedHashMap<>();
+        latencyMicros.put("p50", latency.getPercentile(50));
+        latencyMicros.put("p90", latency.getPercentile(90));
+        latencyMicros.put("p99", latency.getPercentile(99));
+        latencyMicros.put("p999", latency.getPercentile(99.9));
+        latencyMicros.put("max", latency.getMax());
+        stats.put("latencyMicros", latencyMicros);
+        return stats;
+    }
+
+    // Method to get the number of queued checkouts
+    public static int getQueueDepth() {
+        return queue.size();
+    }
+
+    public static long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public static long getCompleted() {
+        return completed.sum();
+    }
+
+    public static long getFailed() {
+        return failed.sum();
+    }
+
+    public static long getUnknown() {
+        return unknown.sum();
+    }
+
+    // Time from queueing a checkout until its order is durable, in microseconds
+    public static Histogram getLatency() {
+        return latency;
+    }
+
+    // Number of checkouts per batch
+    public static Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    // Method to finish all queued checkouts and stop the worker for good, e.g. before the write-ahead log is closed
+    public static void stop() {
+        Thread current;
+        synchronized (CheckoutPipeline.class) {
+            stopped = true;
+            current = worker;
+            running = false;
+            worker = null;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Order checkout(int customerId, int orderId) {
+        // Checked before the cart is taken, so a failed checkout leaves the cart in place
+        if (CustomerData.findCustomerById(customerId) == null) {
+            throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
+        }
+        Cart cart = CartData.takeCart(customerId);
+        if (cart == null || cart.isEmpty()) {
+            throw new CartNotFoundException("Cart is empty or not found for customer ID " + customerId);
+        }
+        try {
+            Order order = new Order();
+            order.setCustomerId(customerId);
+            for (CartItem item : cart.getItems()) {
+                order.addItem(item.getBookId(), item.getQuantity(), BookData.findUnitPriceCents(item.getBookId()));
+            }
+            return OrderData.createOrder(order, orderId);
+        } catch (RuntimeException e) {
+            // E.g. the customer was deleted after the check above; the reserved stock must not leak
+            CartData.returnCart(cart);
+            throw e;
+        }
+    }
+
+    // Starts the worker if it is not running; false once the pipeline has been stopped
+    private static synchronized boolean startWorker() {
+        if (stopped) {
+            return false;
+        }
+        if (worker != null) {
+            return true;
+        }
+        running = true;
+        worker = new Thread(CheckoutPipeline::run, "checkout-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    private static void run() {
+        List<Task> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Keep draining; stop() ends the loop by clearing running
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            batchSizes.record(batch.size());
+            try {
+                WriteAheadLog.runBatched(() -> {
+                    for (Task task : batch) {
+                        process(task);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // The orders are placed and their carts taken, but they may not survive a restart
+                LOGGER.error("Checkout batch could not be made durable", e);
+                for (Task task : batch) {
+                    task.notDurable = task.failure == null;
+                }
+            }
+            for (Task task : batch) {
+                finish(task);
+            }
+            batch.clear();
+        }
+    }
+
+    private static void process(Task task) {
+        try {
+            checkout(task.customerId, task.orderId);
+        } catch (RuntimeException e) {
+            task.failure = e.getMessage();
+        }
+    }
+
+    private static void finish(Task task) {
+        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - task.enqueuedNanos));
+        if (task.notDurable) {
+            unknown.increment();
+            statuses.put(task.orderId, new CheckoutStatus(task.orderId, task.customerId, CheckoutStatus.UNKNOWN,
+                    "The order was placed but could not be saved, so it may be lost on restart."));
+        } else if (task.failure == null) {
+            completed.increment();
+            statuses.remove(task.orderId);
+        } else {
+            failed.increment();
+            statuses.put(task.orderId, new CheckoutStatus(task.orderId, task.customerId, CheckoutStatus.FAILED, task.failure));
+            failedIds.add(task.orderId);
+            if (failedIds.size() > MAX_FAILED_STATUSES) {
+                statuses.remove(failedIds.remove());
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Book;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+
+/**
+ * Compact {@link Store} for the book catalog, keeping each field in a
+ * primitive column instead of one object per book.
+ * <p>
+ * Rows are addressed by book id, so ids need no boxed keys or index of their
+ * own, and listing in id order is a scan. Columns are allocated in chunks of
+ * {@value #ROWS_PER_CHUNK} rows as ids grow. Titles and ISBNs are packed as
+ * length-prefixed UTF-8 into shared byte arenas and referenced by a long
+ * (arena number, offset); a changed string is rewritten in place when it
+ * fits, otherwise appended. Space of deleted rows and outgrown strings is not
+ * reclaimed, which suits an append-mostly catalog.
+ * <p>
+ * Book objects are only materialized on the way out, so callers get a fresh
+ * copy on every read and must write changes back through the store.
+ * Writes take a StampedLock exclusively; reads are optimistic and only fall
+ * back to the read lock if a write overlapped them. Stock is published by
+ * InventoryData without the lock, through release/acquire array accesses.
+ * Every change is journaled to the write-ahead log.
+ */
+final class ColumnarBookStore implements Store<Book> {
+    private static final int CHUNK_BITS = 12;
+    private static final int ROWS_PER_CHUNK = 1 << CHUNK_BITS;
+    private static final int ROW_MASK = ROWS_PER_CHUNK - 1;
+    private static final int ARENA_SIZE = 1 << 20;
+    private static final long NULL_STRING = -1;
+    private static final VarHandle STOCK = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final StampedLock lock = new StampedLock();
+    private final AtomicInteger idGenerator = new AtomicInteger(1);
+    // Directory of column chunks, indexed by id >>> CHUNK_BITS; replaced, never mutated, when it grows
+    private volatile Columns[] chunks = new Columns[16];
+    // String arenas; likewise replaced when a new arena is added
+    private volatile byte[][] arenas = new byte[16][];
+    // Remaining fields are only written while holding the write lock
+    private int arenaCount;
+    private int arenaOffset = ARENA_SIZE;
+    private volatile int highestId;
+    private volatile int size;
+
+    // One chunk of rows; the id of a row is its position
+    private static final class Columns {
+        final long[] present = new long[ROWS_PER_CHUNK / Long.SIZE];
+        final int[] authorIds = new int[ROWS_PER_CHUNK];
+        final int[] publicationYears = new int[ROWS_PER_CHUNK];
+        final double[] prices = new double[ROWS_PER_CHUNK];
+        final int[] stocks = new int[ROWS_PER_CHUNK];
+        final long[] titles = new long[ROWS_PER_CHUNK];
+        final long[] isbns = new long[ROWS_PER_CHUNK];
+        final long[] versions = new long[ROWS_PER_CHUNK];
+
+        boolean isPresent(int row) {
+            return (present[row >>> 6] & (1L << row)) != 0;
+        }
+    }
+
+    @Override
+    public int nextId() {
+        return idGenerator.getAndIncrement();
+    }
+
+    @Override
+    public int peekNextId() {
+        return idGenerator.get();
+    }
+
+    @Override
+    public void advanceIdPast(int id) {
+        idGenerator.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public Book get(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Book book = read(id);
+                if (lock.validate(stamp)) {
+                    return book;
+                }
+            } catch (RuntimeException e) {
+                // A write overlapped and left the columns half-updated; retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Book put(int id, Book book) {
+        Book[] previous = new Book[1];
+        compute(id, (key, current) -> {
+            previous[0] = current;
+            return book;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public Book compute(int id, BiFunction<Integer, Book, Book> remapping) {
+        long lsn = 0;
+        int writeEpoch = WriteAheadLog.beginWrite();
+        long stamp = lock.writeLock();
+        Book next;
+        try {
+            Book current = read(id);
+            next = remapping.apply(id, current);
+            if (next == null) {
+                if (current != null) {
+                    clear(id);
+                    lsn = WriteAheadLog.appendDelete(EntityCodec.BOOK, id);
+                }
+            } else {
+                write(id, next, current);
+                lsn = WriteAheadLog.appendPut(EntityCodec.BOOK, next);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+            WriteAheadLog.endWrite(writeEpoch);
+        }
+        // Wait for durability only after the lock has been released
+        WriteAheadLog.awaitDurable(lsn);
+        return next;
+    }
+
+    @Override
+    public Book remove(int id) {
+        Book[] removed = new Book[1];
+        compute(id, (key, current) -> {
+            removed[0] = current;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean contains(int id) {
+        Columns columns = chunkOf(id);
+        return columns != null && columns.isPresent(id & ROW_MASK);
+    }
+
+    // Method to publish a stock value; returns false if the book is not present
+    boolean setStock(int id, int stock) {
+        Columns columns = chunkOf(id);
+        if (columns == null || !columns.isPresent(id & ROW_MASK)) {
+            return false;
+        }
+        STOCK.setRelease(columns.stocks, id & ROW_MASK, stock);
+        return true;
+    }
+
+    @Override
+    public List<Book> values() {
+        return new ArrayList<>(view());
+    }
+
+    @Override
+    public Collection<Book> view() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Book> iterator() {
+                return new Iterator<>() {
+                    private int nextId = 1;
+                    private Book next;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (next == null && nextId <= highestId) {
+                            next = ColumnarBookStore.this.contains(nextId) ? get(nextId) : null;
+                            nextId++;
+                        }
+                        return next != null;
+                    }
+
+                    @Override
+                    public Book next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Book book = next;
+                        next = null;
+                        return book;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Page<Book> page(Integer afterId, int limit) {
+        List<Book> items = new ArrayList<>(Math.min(limit, 256));
+        int id = afterId != null ? Math.max(afterId, 0) + 1 : 1;
+        int last = highestId;
+        int lastId = 0;
+        for (; id <= last && items.size() < limit; id++) {
+            Book book = contains(id) ? get(id) : null;
+            if (book != null) {
+                items.add(book);
+                lastId = id;
+            }
+        }
+        boolean hasMore = false;
+        for (; id <= last && !hasMore; id++) {
+            hasMore = contains(id);
+        }
+        return new Page<>(items, hasMore ? String.valueOf(lastId) : null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Materializes a row; may see a half-written row unless the caller holds the lock or validates afterwards
+    private Book read(int id) {
+        Columns columns = chunkOf(id);
+        int row = id & ROW_MASK;
+        if (columns == null || !columns.isPresent(row)) {
+            return null;
+        }
+        Book book = new Book(id, unpack(columns.titles[row]), columns.authorIds[row], unpack(columns.isbns[row]),
+                columns.publicationYears[row], columns.prices[row], (int) STOCK.getAcquire(columns.stocks, row));
+        book.setVersion(columns.versions[row]);
+        return book;
+    }
+
+    // Requires the write lock
+    private void write(int id, Book book, Book current) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Book ids must be positive: " + id);
+        }
+        Columns columns = chunkForWrite(id);
+        int row = id & ROW_MASK;
+        boolean present = current != null;
+        columns.titles[row] = pack(book.getTitle(), present ? columns.titles[row] : NULL_STRING);
+        columns.isbns[row] = pack(book.getIsbn(), present ? columns.isbns[row] : NULL_STRING);
+        columns.authorIds[row] = book.getAuthorId();
+        columns.publicationYears[row] = book.getPublicationYear();
+        columns.prices[row] = book.getPrice();
+        columns.versions[row] = book.getVersion();
+        STOCK.setRelease(columns.stocks, row, book.getStock());
+        if (!present) {
+            columns.present[row >>> 6] |= 1L << row;
+            size++;
+            if (id > highestId) {
+                highestId = id;
+            }
+        }
+    }
+
+    // Requires the write lock
+    private void clear(int id) {
+        Columns columns = chunkOf(id);
+        int row = id & ROW_MASK;
+        columns.present[row >>> 6] &= ~(1L << row);
+        size--;
+    }
+
+    private Columns chunkOf(int id) {
+        if (id <= 0) {
+            return null;
+        }
+        Columns[] directory = chunks;
+        int chunk = id >>> CHUNK_BITS;
+        return chunk < directory.length ? directory[chunk] : null;
+    }
+
+    // Requires the write lock
+    private Columns chunkForWrite(int id) {
+        int chunk = id >>> CHUNK_BITS;
+        Columns[] directory = chunks;
+        if (chunk >= directory.length) {
+            directory = Arrays.copyOf(directory, Math.max(directory.length * 2, chunk + 1));
+            chunks = directory;
+        }
+        Columns columns = directory[chunk];
+        if (columns == null) {
+            columns = new Columns();
+            directory[chunk] = columns;
+        }
+        return columns;
+    }
+
+    // Stores a string, reusing the space of the previous value when it fits; requires the write lock
+    private long pack(String value, long previous) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (previous != NULL_STRING) {
+            byte[] arena = arenas[(int) (previous >>> 32)];
+            int offset = (int) previous;
+            if (bytes.length <= readLength(arena, offset)) {
+                writeString(arena, offset, bytes);
+                return previous;
+            }
+        }
+        int needed = Integer.BYTES + bytes.length;
+        if (arenaCount == 0 || arenaOffset + needed > arenas[arenaCount - 1].length) {
+            addArena(Math.max(ARENA_SIZE, needed));
+        }
+        int offset = arenaOffset;
+        writeString(arenas[arenaCount - 1], offset, bytes);
+        arenaOffset += needed;
+        return ((long) (arenaCount - 1) << 32) | offset;
+    }
+
+    private String unpack(long reference) {
+        if (reference == NULL_STRING) {
+            return null;
+        }
+        byte[] arena = arenas[(int) (reference >>> 32)];
+        int offset = (int) reference;
+        return new String(arena, offset + Integer.BYTES, readLength(arena, offset), StandardCharsets.UTF_8);
+    }
+
+    // Requires the write lock
+    private void addArena(int length) {
+        byte[][] current = arenas;
+        if (arenaCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[arenaCount++] = new byte[length];
+        arenas = current;
+        arenaOffset = 0;
+    }
+
+    private static void writeString(byte[] arena, int offset, byte[] bytes) {
+        arena[offset] = (byte) (bytes.length >>> 24);
+        arena[offset + 1] = (byte) (bytes.length >>> 16);
+        arena[offset + 2] = (byte) (bytes.length >>> 8);
+        arena[offset + 3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, arena, offset + Integer.BYTES, bytes.length);
+    }
+
+    private static int readLength(byte[] arena, int offset) {
+        return ((arena[offset] & 0xFF) << 24) | ((arena[offset + 1] & 0xFF) << 16)
+                | ((arena[offset + 2] & 0xFF) << 8) | (arena[offset + 3] & 0xFF);
+    }
+}
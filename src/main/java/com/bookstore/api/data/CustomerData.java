@@ -1,22 +1,35 @@
 package com.bookstore.api.data;
 
+import com.bookstore.api.exception.InvalidInputException;
 import com.bookstore.api.model.Customer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class CustomerData {
-    private static final Map<Integer, Customer> customers = new HashMap<>();
-    private static final AtomicInteger idGenerator = new AtomicInteger(1);
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerData.class);
+    private static final EntityStore<Customer> customers = new EntityStore<>(EntityCodec.CUSTOMER);
+    // Unique index: normalized email -> customer id
+    private static final ConcurrentMap<String, Integer> customerIdsByEmail = new ConcurrentHashMap<>();
 
     // --- Customer methods ---
     public static Customer addCustomer(Customer customer) {
-        int id = idGenerator.getAndIncrement();
+        int id = customers.nextId();
         customer.setId(id);
-        customers.put(id, customer);
+        // Claiming the email first makes the duplicate check and the insert one atomic step
+        claimEmail(customer.getEmail(), id);
+        try {
+            customers.put(id, customer);
+        } catch (RuntimeException e) {
+            undoEmailChanges(customer, true, null);
+            throw e;
+        }
         return customer;
     }
 
@@ -25,27 +38,117 @@ public class CustomerData {
         return customers.get(id);
     }
 
-    // Method to find a customer by email
+    // Method to find a customer by email (case-insensitive)
     public static Customer findCustomerByEmail(String email) {
-        return customers.values().stream()
-                .filter(c -> c.getEmail().equalsIgnoreCase(email))
-                .findFirst()
-                .orElse(null);
+        if (email == null) {
+            return null;
+        }
+        Integer id = customerIdsByEmail.get(normalizeEmail(email));
+        return id != null ? customers.get(id) : null;
     }
 
     // Method to get all customers
     public static List<Customer> getAllCustomers() {
-        return new ArrayList<>(customers.values());
+        return customers.values();
+    }
+
+    // Method to iterate over all customers without copying them, e.g. for streaming responses
+    public static Collection<Customer> viewAllCustomers() {
+        return customers.view();
+    }
+
+    // Method to get a page of customers ordered by ID, starting after the given ID
+    public static Page<Customer> getCustomersPage(Integer afterId, int limit) {
+        return customers.page(afterId, limit);
     }
 
     // Method to update a customer
     public static Customer updateCustomer(Customer customer) {
-        customers.put(customer.getId(), customer);
+        boolean[] claimed = new boolean[1];
+        String[] releasedEmail = new String[1];
+        try {
+            customers.compute(customer.getId(), (id, previous) -> {
+                claimed[0] = claimEmail(customer.getEmail(), id);
+                if (previous != null && !normalizeEmail(previous.getEmail()).equals(normalizeEmail(customer.getEmail()))) {
+                    customerIdsByEmail.remove(normalizeEmail(previous.getEmail()), id);
+                    releasedEmail[0] = previous.getEmail();
+                }
+                return customer;
+            });
+        } catch (RuntimeException e) {
+            undoEmailChanges(customer, claimed[0], releasedEmail[0]);
+            throw e;
+        }
         return customer;
     }
 
     // Method to delete a customer
     public static void deleteCustomer(int id) {
+        customers.compute(id, (key, existing) -> {
+            if (existing != null) {
+                customerIdsByEmail.remove(normalizeEmail(existing.getEmail()), key);
+            }
+            return null;
+        });
+    }
+
+    // Method to re-apply a customer read back from disk; the email index is rebuilt once replay is done
+    static void restoreCustomer(Customer customer) {
+        customers.advanceIdPast(customer.getId());
+        // Snapshots are fuzzy and records of different customers can be logged out of order,
+        // so a replay may pass through states where two customers hold the same email
+        customers.put(customer.getId(), customer);
+    }
+
+    // Method to re-apply a customer deletion read back from disk
+    static void restoreCustomerDeletion(int id) {
         customers.remove(id);
     }
-}
\ No newline at end of file
+
+    // Method to rebuild the email index from the restored customers; the lowest id keeps a duplicated email
+    static void rebuildEmailIndex() {
+        customerIdsByEmail.clear();
+        List<Customer> restored = customers.values();
+        restored.sort(Comparator.comparingInt(Customer::getId));
+        for (Customer customer : restored) {
+            Integer owner = customerIdsByEmail.putIfAbsent(normalizeEmail(customer.getEmail()), customer.getId());
+            if (owner != null) {
+                LOGGER.warn("Customers {} and {} were restored with the same email; lookups by email find {}",
+                        owner, customer.getId(), owner);
+            }
+        }
+    }
+
+    // Reserves the email for the customer, failing if another customer already holds it;
+    // returns false if the customer already held it
+    private static boolean claimEmail(String email, int customerId) {
+        Integer owner = customerIdsByEmail.putIfAbsent(normalizeEmail(email), customerId);
+        if (owner != null && owner != customerId) {
+            throw new InvalidInputException("A customer with email " + email + " already exists.");
+        }
+        return owner == null;
+    }
+
+    // Gives back the email claimed and takes back the one released by a write that failed, e.g. because
+    // the log append threw; a write that failed only while waiting for durability was stored and keeps them
+    private static void undoEmailChanges(Customer customer, boolean claimed, String releasedEmail) {
+        if (customers.get(customer.getId()) == customer) {
+            return;
+        }
+        if (claimed) {
+            customerIdsByEmail.remove(normalizeEmail(customer.getEmail()), customer.getId());
+        }
+        if (releasedEmail != null) {
+            customerIdsByEmail.putIfAbsent(normalizeEmail(releasedEmail), customer.getId());
+        }
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // Method to expose the backing store to the snapshot writer
+    static EntityStore<Customer> store() {
+        return customers;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bookstore.api.data;
+
+/**
+ * How long a write waits for the write-ahead log before it returns.
+ */
+public enum DurabilityMode {
+    /** Each write waits until an fsync covering it has completed; concurrent writes share an fsync. The default. */
+    PER_WRITE,
+    /** Like PER_WRITE, but while fewer than a few dozen records are pending the log writer waits a short window to gather more into each fsync. */
+    BATCHED,
+    /** Writes return immediately; the log is written and synced in the background at a fixed interval. */
+    ASYNC
+}
@@ -0,0 +1,156 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Author;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.CartItem;
+import com.bookstore.api.model.Customer;
+import com.bookstore.api.model.Order;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compact binary encoding of one entity type, used for the write-ahead log.
+ * Fields are written in declaration order; strings are a length-prefixed
+ * UTF-8 byte run, with length -1 for null.
+ *
+ * @param <T> the entity type
+ */
+public abstract class EntityCodec<T> {
+    public static final EntityCodec<Book> BOOK = new EntityCodec<>((byte) 1) {
+        @Override
+        public void write(Book book, DataOutputStream out) throws IOException {
+            out.writeInt(book.getId());
+            writeString(out, book.getTitle());
+            out.writeInt(book.getAuthorId());
+            writeString(out, book.getIsbn());
+            out.writeInt(book.getPublicationYear());
+            out.writeDouble(book.getPrice());
+            out.writeInt(book.getStock());
+        }
+
+        @Override
+        public Book read(ByteBuffer in) {
+            return new Book(in.getInt(), readString(in), in.getInt(), readString(in), in.getInt(), in.getDouble(), in.getInt());
+        }
+    };
+
+    public static final EntityCodec<Author> AUTHOR = new EntityCodec<>((byte) 2) {
+        @Override
+        public void write(Author author, DataOutputStream out) throws IOException {
+            out.writeInt(author.getId());
+            writeString(out, author.getName());
+            writeString(out, author.getBiography());
+        }
+
+        @Override
+        public Author read(ByteBuffer in) {
+            return new Author(in.getInt(), readString(in), readString(in));
+        }
+    };
+
+    public static final EntityCodec<Customer> CUSTOMER = new EntityCodec<>((byte) 3) {
+        @Override
+        public void write(Customer customer, DataOutputStream out) throws IOException {
+            out.writeInt(customer.getId());
+            writeString(out, customer.getName());
+            writeString(out, customer.getEmail());
+            writeString(out, customer.getPassword());
+        }
+
+        @Override
+        public Customer read(ByteBuffer in) {
+            return new Customer(in.getInt(), readString(in), readString(in), readString(in));
+        }
+    };
+
+    public static final EntityCodec<Cart> CART = new EntityCodec<>((byte) 4) {
+        @Override
+        public void write(Cart cart, DataOutputStream out) throws IOException {
+            List<CartItem> items = cart.getItems();
+            out.writeInt(cart.getCustomerId());
+            out.writeInt(items.size());
+            for (CartItem item : items) {
+                out.writeInt(item.getBookId());
+                out.writeInt(item.getQuantity());
+            }
+        }
+
+        @Override
+        public Cart read(ByteBuffer in) {
+            int customerId = in.getInt();
+            int size = in.getInt();
+            Cart cart = new Cart(customerId);
+            for (int i = 0; i < size; i++) {
+                cart.setQuantity(in.getInt(), in.getInt());
+            }
+            return cart;
+        }
+    };
+
+    public static final EntityCodec<Order> ORDER = new EntityCodec<>((byte) 5) {
+        @Override
+        public void write(Order order, DataOutputStream out) throws IOException {
+            int lines = order.getLineCount();
+            out.writeInt(order.getId());
+            out.writeInt(order.getCustomerId());
+            out.writeInt(lines);
+            for (int line = 0; line < lines; line++) {
+                out.writeInt(order.getBookId(line));
+                out.writeInt(order.getQuantity(line));
+                out.writeInt(order.getUnitPriceCents(line));
+            }
+        }
+
+        @Override
+        public Order read(ByteBuffer in) {
+            Order order = new Order();
+            order.setId(in.getInt());
+            order.setCustomerId(in.getInt());
+            int size = in.getInt();
+            for (int i = 0; i < size; i++) {
+                order.addItem(in.getInt(), in.getInt(), in.getInt());
+            }
+            return order;
+        }
+    };
+
+    private final byte type;
+
+    private EntityCodec(byte type) {
+        this.type = type;
+    }
+
+    // Record type tag identifying this entity type on disk
+    public byte type() {
+        return type;
+    }
+
+    public abstract void write(T entity, DataOutputStream out) throws IOException;
+
+    public abstract T read(ByteBuffer in);
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,190 @@
+package com.bookstore.api.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * General-purpose {@link Store}, backed by a ConcurrentHashMap: reads never
+ * block and writes only contend with other writes to the same hash bin, so
+ * request threads scale across cores.
+ * Each Data class owns its own instance.
+ * An ordered id index is kept alongside the map so listings can be paged by
+ * id without copying the whole store.
+ * When created with a codec, every change is journaled to the write-ahead log
+ * while the key is still locked, so the log order of a key matches the order
+ * in which its writes were applied.
+ *
+ * @param <T> the entity type
+ */
+public class EntityStore<T> implements Store<T> {
+    private final ConcurrentMap<Integer, T> entities = new ConcurrentHashMap<>();
+    // Ordered index of present ids; only changed while holding the map's lock for that id
+    private final NavigableSet<Integer> ids = new ConcurrentSkipListSet<>();
+    private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final EntityCodec<T> codec;
+
+    // Creates a store whose changes are not journaled
+    public EntityStore() {
+        this(null);
+    }
+
+    // Creates a store whose changes are journaled to the write-ahead log with the given codec
+    public EntityStore(EntityCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    // Method to allocate the next id for a new entity
+    @Override
+    public int nextId() {
+        return idGenerator.getAndIncrement();
+    }
+
+    // Method to peek at the id the next call to nextId will return
+    @Override
+    public int peekNextId() {
+        return idGenerator.get();
+    }
+
+    // Method to make sure future ids are allocated after an id restored from disk
+    @Override
+    public void advanceIdPast(int id) {
+        idGenerator.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Method to find an entity by ID
+    @Override
+    public T get(int id) {
+        return entities.get(id);
+    }
+
+    // Method to insert or replace an entity, returning the previous one
+    @Override
+    public T put(int id, T entity) {
+        Object[] previous = new Object[1];
+        compute(id, (key, current) -> {
+            previous[0] = current;
+            return entity;
+        });
+        return cast(previous[0]);
+    }
+
+    // Method to insert an entity only if the ID is free, returning the current one otherwise
+    public T putIfAbsent(int id, T entity) {
+        Object[] existing = new Object[1];
+        compute(id, (key, current) -> {
+            existing[0] = current;
+            return current != null ? current : entity;
+        });
+        return cast(existing[0]);
+    }
+
+    // Method to atomically recompute the entity stored under an ID
+    @Override
+    public T compute(int id, BiFunction<Integer, T, T> remapping) {
+        long[] lsn = new long[1];
+        int writeEpoch = codec != null ? WriteAheadLog.beginWrite() : -1;
+        T result;
+        try {
+            result = entities.compute(id, (key, current) -> {
+                T next = remapping.apply(key, current);
+                if (next == null) {
+                    ids.remove(key);
+                    if (current != null && codec != null) {
+                        lsn[0] = WriteAheadLog.appendDelete(codec, key);
+                    }
+                } else {
+                    if (current == null) {
+                        ids.add(key);
+                    }
+                    if (codec != null) {
+                        lsn[0] = WriteAheadLog.appendPut(codec, next);
+                    }
+                }
+                return next;
+            });
+        } finally {
+            WriteAheadLog.endWrite(writeEpoch);
+        }
+        // Wait for durability only after the key's lock has been released
+        WriteAheadLog.awaitDurable(lsn[0]);
+        return result;
+    }
+
+    // Method to remove an entity, returning the removed one
+    @Override
+    public T remove(int id) {
+        Object[] removed = new Object[1];
+        compute(id, (key, current) -> {
+            removed[0] = current;
+            return null;
+        });
+        return cast(removed[0]);
+    }
+
+    // Method to remove an entity only if it is still the given instance
+    public boolean remove(int id, T entity) {
+        boolean[] removed = new boolean[1];
+        compute(id, (key, current) -> {
+            removed[0] = current != null && current == entity;
+            return removed[0] ? null : current;
+        });
+        return removed[0];
+    }
+
+    // Method to check whether an ID is present
+    @Override
+    public boolean contains(int id) {
+        return entities.containsKey(id);
+    }
+
+    // Method to get a point-in-time copy of all entities
+    @Override
+    public List<T> values() {
+        return new ArrayList<>(entities.values());
+    }
+
+    // Method to get a read-only, weakly consistent live view of all entities, without copying
+    @Override
+    public Collection<T> view() {
+        return Collections.unmodifiableCollection(entities.values());
+    }
+
+    // Method to get up to limit entities with ids greater than afterId (null for the first page)
+    @Override
+    public Page<T> page(Integer afterId, int limit) {
+        NavigableSet<Integer> remaining = afterId != null ? ids.tailSet(afterId, false) : ids;
+        List<T> items = new ArrayList<>(Math.min(limit, 256));
+        Integer lastId = null;
+        for (Integer id : remaining) {
+            if (items.size() == limit) {
+                break;
+            }
+            T entity = entities.get(id);
+            if (entity != null) {
+                items.add(entity);
+                lastId = id;
+            }
+        }
+        boolean hasMore = lastId != null && items.size() == limit && ids.higher(lastId) != null;
+        return new Page<>(items, hasMore ? String.valueOf(lastId) : null);
+    }
+
+    // Method to get the number of entities
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+}
@@ -0,0 +1,162 @@
+package com.bookstore.api.data;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-book stock counters with lock-free reservations.
+ * Every reservation is a compare-and-set on the book's own counter, so the
+ * check and the decrement happen as one step and concurrent shoppers cannot
+ * oversell. Books never share a counter, so there is no global lock.
+ * The counter is the source of truth; the value is published back to the
+ * stored book so that serialized books show the current stock.
+ * <p>
+ * Each counter packs a version (high 32 bits) with the stock (low 32 bits).
+ * Every change bumps the version and is logged as (version, stock), so
+ * replaying the log converges on the latest value in whatever order the
+ * records were written.
+ */
+public class InventoryData {
+    private static final ConcurrentMap<Integer, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    // Method to set the absolute stock of a book, creating its counter if needed
+    public static void setStock(int bookId, int stock) {
+        AtomicLong counter = counters.computeIfAbsent(bookId, k -> new AtomicLong());
+        while (true) {
+            long current = counter.get();
+            long next = pack(versionOf(current) + 1, stock);
+            if (counter.compareAndSet(current, next)) {
+                changed(bookId, counter, next);
+                return;
+            }
+        }
+    }
+
+    // Method to stop tracking stock for a deleted book
+    public static void removeStock(int bookId) {
+        counters.remove(bookId);
+    }
+
+    // Method to get the stock currently available for a book (0 if unknown)
+    public static int getAvailable(int bookId) {
+        AtomicLong counter = counters.get(bookId);
+        return counter != null ? stockOf(counter.get()) : 0;
+    }
+
+    // Method to get the version of a book's stock, bumped on every change (0 if unknown)
+    public static int getVersion(int bookId) {
+        AtomicLong counter = counters.get(bookId);
+        return counter != null ? versionOf(counter.get()) : 0;
+    }
+
+    // Method to read a book's version and stock together, packed as in the counter (0 if unknown)
+    static long getVersionedStock(int bookId) {
+        AtomicLong counter = counters.get(bookId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    // Method to take quantity units out of stock, only if enough are available
+    public static StockReservation reserve(int bookId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Reserved quantity cannot be negative: " + quantity);
+        }
+        AtomicLong counter = counters.get(bookId);
+        if (counter == null) {
+            return StockReservation.rejected(0);
+        }
+        while (true) {
+            long current = counter.get();
+            int stock = stockOf(current);
+            if (stock < quantity) {
+                return StockReservation.rejected(stock);
+            }
+            long next = pack(versionOf(current) + 1, stock - quantity);
+            if (counter.compareAndSet(current, next)) {
+                changed(bookId, counter, next);
+                return StockReservation.accepted(stock - quantity);
+            }
+        }
+    }
+
+    // Method to return quantity units to stock
+    public static StockReservation release(int bookId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Released quantity cannot be negative: " + quantity);
+        }
+        AtomicLong counter = counters.get(bookId);
+        if (counter == null) {
+            // The book was deleted while the units were reserved; nothing to return them to
+            return StockReservation.accepted(0);
+        }
+        while (true) {
+            long current = counter.get();
+            long next = pack(versionOf(current) + 1, stockOf(current) + quantity);
+            if (counter.compareAndSet(current, next)) {
+                changed(bookId, counter, next);
+                return StockReservation.accepted(stockOf(next));
+            }
+        }
+    }
+
+    // Method to reserve (positive delta) or release (negative delta) stock
+    public static StockReservation adjust(int bookId, int delta) {
+        if (delta > 0) {
+            return reserve(bookId, delta);
+        }
+        if (delta < 0) {
+            return release(bookId, -delta);
+        }
+        return StockReservation.accepted(getAvailable(bookId));
+    }
+
+    // Method to apply a logged counter value, ignoring it if a newer version is already present
+    static void restoreStock(int bookId, int version, int stock) {
+        AtomicLong counter = counters.computeIfAbsent(bookId, k -> new AtomicLong());
+        long restored = pack(version, stock);
+        counter.accumulateAndGet(restored, (current, candidate) -> versionOf(candidate) > versionOf(current) ? candidate : current);
+    }
+
+    // Method to copy every counter into its Book, e.g. after a replay
+    static void publishAll() {
+        for (Map.Entry<Integer, AtomicLong> entry : counters.entrySet()) {
+            publish(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Method to expose the counters to the snapshot writer
+    static Set<Map.Entry<Integer, AtomicLong>> counters() {
+        return counters.entrySet();
+    }
+
+    private static void changed(int bookId, AtomicLong counter, long value) {
+        long lsn = WriteAheadLog.appendStock(bookId, versionOf(value), stockOf(value));
+        publish(bookId, counter);
+        WriteAheadLog.awaitDurable(lsn);
+    }
+
+    // Copies the counter into the stored book; re-checks so a slower writer never leaves a stale value behind
+    private static void publish(int bookId, AtomicLong counter) {
+        long value;
+        do {
+            value = counter.get();
+            if (!BookData.publishStock(bookId, stockOf(value))) {
+                return;
+            }
+        } while (value != counter.get());
+    }
+
+    private static long pack(int version, int stock) {
+        return ((long) version << 32) | (stock & 0xFFFFFFFFL);
+    }
+
+    static int versionOf(long value) {
+        return (int) (value >>> 32);
+    }
+
+    static int stockOf(long value) {
+        return (int) value;
+    }
+}
@@ -5,36 +5,89 @@ import com.bookstore.api.exception.InvalidInputException;
 import com.bookstore.api.model.Order;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 public class OrderData {
-    private static final Map<Integer, List<Order>> orderMap = new HashMap<>();
-    private static int nextOrderId = 1;
+    // Primary index: orderId -> order; also allocates order ids atomically
+    private static final EntityStore<Order> orders = new EntityStore<>(EntityCodec.ORDER);
+    // Per-customer orders keyed by orderId, safe for concurrent append and iteration
+    private static final ConcurrentMap<Integer, ConcurrentNavigableMap<Integer, Order>> orderMap = new ConcurrentHashMap<>();
+
+    //Method to allocate the id of an order before it is created, e.g. to hand it out for an asynchronous checkout
+    public static int nextOrderId() {
+        return orders.nextId();
+    }
 
     //Method to create an order
     public static Order createOrder(Order order) {
+        return createOrder(order, orders.nextId());
+    }
+
+    //Method to create an order under an id from nextOrderId
+    public static Order createOrder(Order order, int id) {
         if (CustomerData.findCustomerById(order.getCustomerId()) == null) {
             throw new InvalidInputException("Cannot create order: customer does not exist.");
         }
 
-        order.setId(nextOrderId++);
-        orderMap.computeIfAbsent(order.getCustomerId(), k -> new ArrayList<>()).add(order);
+        order.setId(id);
+        orders.put(id, order);
+        orderMap.computeIfAbsent(order.getCustomerId(), k -> new ConcurrentSkipListMap<>()).put(id, order);
         return order;
     }
 
+    //Method to re-apply an order read back from disk
+    static void restoreOrder(Order order) {
+        orders.advanceIdPast(order.getId());
+        orders.put(order.getId(), order);
+        orderMap.computeIfAbsent(order.getCustomerId(), k -> new ConcurrentSkipListMap<>()).put(order.getId(), order);
+    }
+
     //Method to find order:by customerId
     public static List<Order> findOrdersByCustomerId(int customerId) {
-        return orderMap.getOrDefault(customerId, new ArrayList<>());
+        ConcurrentNavigableMap<Integer, Order> customerOrders = orderMap.get(customerId);
+        return customerOrders != null ? new ArrayList<>(customerOrders.values()) : new ArrayList<>();
+    }
+
+    //Method to iterate over a customer's orders without copying them, e.g. for streaming responses
+    public static Collection<Order> viewOrdersByCustomerId(int customerId) {
+        ConcurrentNavigableMap<Integer, Order> customerOrders = orderMap.get(customerId);
+        return customerOrders != null ? Collections.unmodifiableCollection(customerOrders.values()) : Collections.emptyList();
+    }
+
+    //Method to find a page of a customer's orders ordered by ID, starting after the given ID
+    public static Page<Order> findOrdersPageByCustomerId(int customerId, Integer afterId, int limit) {
+        ConcurrentNavigableMap<Integer, Order> customerOrders = orderMap.get(customerId);
+        if (customerOrders == null) {
+            return new Page<>(new ArrayList<>(), null);
+        }
+        ConcurrentNavigableMap<Integer, Order> remaining = afterId != null ? customerOrders.tailMap(afterId, false) : customerOrders;
+        List<Order> items = new ArrayList<>(Math.min(limit, 256));
+        Integer lastId = null;
+        for (Map.Entry<Integer, Order> entry : remaining.entrySet()) {
+            if (items.size() == limit) {
+                break;
+            }
+            items.add(entry.getValue());
+            lastId = entry.getKey();
+        }
+        boolean hasMore = lastId != null && items.size() == limit && customerOrders.higherKey(lastId) != null;
+        return new Page<>(items, hasMore ? String.valueOf(lastId) : null);
     }
 
     //Method to find order:by orderId
     public static Order findOrderById(int customerId, int orderId) {
-        List<Order> orders = orderMap.get(customerId);
-        if (orders != null) {
-            return orders.stream()
-                    .filter(o -> o.getId() == orderId)
-                    .findFirst()
-                    .orElse(null);
+        Order order = orders.get(orderId);
+        if (order != null && order.getCustomerId() == customerId) {
+            return order;
         }
         return null;
     }
+
+    // Method to expose the backing store to the snapshot writer
+    static EntityStore<Order> store() {
+        return orders;
+    }
 }
@@ -0,0 +1,38 @@
+package com.bookstore.api.data;
+
+import java.util.List;
+
+/**
+ * One page of a collection listing.
+ * The next cursor is the id of the last item on the page, or null when there
+ * are no further items. Because it is an id rather than an offset, it stays
+ * valid while other entities are inserted or deleted.
+ *
+ * @param <T> the entity type
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,204 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Book;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Inverted index over book titles and author names.
+ * Text is split into runs of letters and digits and lower-cased; each token
+ * maps to the ids of the books (for titles) or authors (for names) that
+ * contain it. Author tokens are expanded to books through BookData's author
+ * index at query time, so renaming an author touches only that author's
+ * tokens. BookData and AuthorData update the index from inside their
+ * compute() calls; the postings are concurrent sets, so searches never wait
+ * for writers.
+ * <p>
+ * A query matches books that contain every query token in their title or
+ * author name. Results are ranked by how many tokens hit the title (worth 2)
+ * or the author name (worth 1), then by id. Candidates come from the token
+ * with the fewest postings, so a query costs in proportion to its rarest
+ * token rather than the size of the catalog; only the best matches up to
+ * the requested page are kept and sorted.
+ */
+final class SearchIndex {
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+    // Higher score first, then lower id
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt((Match match) -> match.score).reversed()
+            .thenComparingInt(match -> match.book.getId());
+
+    private static final ConcurrentMap<String, Set<Integer>> bookIdsByTitleToken = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Set<Integer>> authorIdsByNameToken = new ConcurrentHashMap<>();
+
+    private SearchIndex() {
+    }
+
+    // Re-indexes a book title; pass null for the old title of a new book or the new title of a deleted one
+    static void updateTitle(int bookId, String oldTitle, String newTitle) {
+        update(bookIdsByTitleToken, bookId, oldTitle, newTitle);
+    }
+
+    // Re-indexes an author name; pass null for the old name of a new author or the new name of a deleted one
+    static void updateAuthorName(int authorId, String oldName, String newName) {
+        update(authorIdsByNameToken, authorId, oldName, newName);
+    }
+
+    // Returns one page of the books matching the query, best match first, starting at offset
+    static Page<Book> search(String query, int offset, int limit) {
+        Set<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new Page<>(Collections.emptyList(), null);
+        }
+        String rarest = null;
+        int rarestCount = Integer.MAX_VALUE;
+        for (String token : tokens) {
+            int count = estimateMatches(token);
+            if (count < rarestCount) {
+                rarest = token;
+                rarestCount = count;
+            }
+        }
+        if (rarestCount == 0) {
+            return new Page<>(Collections.emptyList(), null);
+        }
+        // Only the best offset + limit matches are kept, worst on top, so a page costs
+        // O(candidates * log(offset + limit)) instead of sorting every match
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(wanted, 256) + 1, BEST_FIRST.reversed());
+        int[] matchCount = new int[1];
+        Set<Integer> titleIds = bookIdsByTitleToken.getOrDefault(rarest, Collections.emptySet());
+        for (int bookId : titleIds) {
+            offer(bookId, tokens, best, wanted, matchCount);
+        }
+        for (int authorId : authorIdsByNameToken.getOrDefault(rarest, Collections.emptySet())) {
+            for (int bookId : BookData.bookIdsOfAuthor(authorId)) {
+                // Books whose title also holds the token were offered above
+                if (!titleIds.contains(bookId)) {
+                    offer(bookId, tokens, best, wanted, matchCount);
+                }
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        List<Book> items = new ArrayList<>(Math.max(ranked.size() - offset, 0));
+        for (int i = offset; i < ranked.size(); i++) {
+            items.add(ranked.get(i).book);
+        }
+        boolean hasMore = matchCount[0] > wanted;
+        return new Page<>(items, hasMore ? String.valueOf(wanted) : null);
+    }
+
+    // Scores a candidate and keeps it if it ranks among the wanted best
+    private static void offer(int bookId, Set<String> tokens, PriorityQueue<Match> best, int wanted, int[] matchCount) {
+        Book book = BookData.findBookById(bookId);
+        if (book == null) {
+            return;
+        }
+        int score = score(book, tokens);
+        if (score == 0) {
+            return;
+        }
+        matchCount[0]++;
+        Match match = new Match(book, score);
+        if (best.size() < wanted) {
+            best.add(match);
+        } else if (wanted > 0 && BEST_FIRST.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    // Splits text into distinct lower-cased runs of letters and digits
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    // Sum of the weights of the tokens the book matches, or 0 unless it matches every token
+    private static int score(Book book, Set<String> tokens) {
+        int score = 0;
+        for (String token : tokens) {
+            int tokenScore = 0;
+            if (contains(bookIdsByTitleToken, token, book.getId())) {
+                tokenScore += TITLE_WEIGHT;
+            }
+            if (contains(authorIdsByNameToken, token, book.getAuthorId())) {
+                tokenScore += AUTHOR_WEIGHT;
+            }
+            if (tokenScore == 0) {
+                return 0;
+            }
+            score += tokenScore;
+        }
+        return score;
+    }
+
+    // Upper bound on the number of books containing the token, without building the set
+    private static int estimateMatches(String token) {
+        int count = bookIdsByTitleToken.getOrDefault(token, Collections.emptySet()).size();
+        for (int authorId : authorIdsByNameToken.getOrDefault(token, Collections.emptySet())) {
+            count += BookData.bookIdsOfAuthor(authorId).size();
+        }
+        return count;
+    }
+
+    private static boolean contains(ConcurrentMap<String, Set<Integer>> postings, String token, int id) {
+        Set<Integer> ids = postings.get(token);
+        return ids != null && ids.contains(id);
+    }
+
+    private static void update(ConcurrentMap<String, Set<Integer>> postings, int id, String oldText, String newText) {
+        Set<String> oldTokens = tokenize(oldText);
+        Set<String> newTokens = tokenize(newText);
+        for (String token : oldTokens) {
+            if (!newTokens.contains(token)) {
+                postings.computeIfPresent(token, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        for (String token : newTokens) {
+            if (!oldTokens.contains(token)) {
+                postings.compute(token, (key, ids) -> {
+                    Set<Integer> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    updated.add(id);
+                    return updated;
+                });
+            }
+        }
+    }
+
+    private static final class Match {
+        final Book book;
+        final int score;
+
+        Match(Book book, int score) {
+            this.book = book;
+            this.score = score;
+        }
+    }
+}
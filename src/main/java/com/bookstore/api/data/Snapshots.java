@@ -0,0 +1,205 @@
+package com.bookstore.api.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshots of all five stores and the stock counters.
+ * <p>
+ * A snapshot is written while traffic continues: the stores are iterated
+ * without locking, so the result is fuzzy, and recovery replays the log
+ * segments written since the snapshot was started on top of it. Every
+ * logged change is an absolute value (stock changes carry a version), so
+ * replaying a change the snapshot already contains is harmless.
+ * <p>
+ * Snapshots are loaded through a read-only memory mapping, so startup reads
+ * the file at page-cache speed without copying it onto the heap first.
+ * <p>
+ * File layout: magic, format version, first log segment to replay, then one
+ * section per store (type tag, next id, entries each preceded by a 1 byte,
+ * closed by a 0 byte), a stock section, and a trailing CRC32 of everything
+ * before it.
+ */
+final class Snapshots {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Snapshots.class);
+
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int FORMAT_VERSION = 1;
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("bookstore-(\\d+)\\.snap");
+    private static final byte ENTRY = 1;
+    private static final byte END_OF_SECTION = 0;
+
+    private Snapshots() {
+    }
+
+    // Writes a snapshot from which recovery will continue with the given log segment
+    static void write(Path directory, long fromSegment) throws IOException {
+        Path target = snapshotFile(directory, fromSegment);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fromSegment);
+            writeSection(out, EntityCodec.AUTHOR, AuthorData.store());
+            writeSection(out, EntityCodec.BOOK, BookData.store());
+            writeSection(out, EntityCodec.CUSTOMER, CustomerData.store());
+            writeSection(out, EntityCodec.CART, CartData.store());
+            writeSection(out, EntityCodec.ORDER, OrderData.store());
+            writeStockSection(out);
+            out.flush();
+            int checksum = (int) checked.getChecksum().getValue();
+            DataOutputStream trailer = new DataOutputStream(file);
+            trailer.writeInt(checksum);
+            trailer.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Loads the newest snapshot, if any; returns the first log segment to replay after it
+    static long loadLatest(Path directory) throws IOException {
+        List<Long> numbers = listSnapshots(directory);
+        if (numbers.isEmpty()) {
+            return 0;
+        }
+        Path file = snapshotFile(directory, numbers.get(numbers.size() - 1));
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than 2 GB and cannot be mapped");
+            }
+            if (size < Integer.BYTES) {
+                throw new IOException("Snapshot " + file + " is corrupt");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyLength = (int) size - Integer.BYTES;
+            ByteBuffer body = mapped.duplicate();
+            body.limit(bodyLength);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != mapped.getInt(bodyLength)) {
+                throw new IOException("Snapshot " + file + " is corrupt");
+            }
+            mapped.limit(bodyLength);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION) {
+                throw new IOException("Snapshot " + file + " has an unknown format");
+            }
+            long fromSegment = mapped.getLong();
+            readSection(mapped, EntityCodec.AUTHOR, AuthorData.store());
+            readSection(mapped, EntityCodec.BOOK, BookData.store());
+            readSection(mapped, EntityCodec.CUSTOMER, CustomerData.store());
+            readSection(mapped, EntityCodec.CART, CartData.store());
+            readSection(mapped, EntityCodec.ORDER, OrderData.store());
+            readStockSection(mapped);
+            LOGGER.info("Loaded snapshot {} ({} bytes) in {} ms", file, size, (System.nanoTime() - started) / 1_000_000);
+            return fromSegment;
+        }
+    }
+
+    // Deletes snapshots older than the given one, and leftovers of interrupted writes
+    static void deleteOlderThan(Path directory, long fromSegment) throws IOException {
+        for (long number : listSnapshots(directory)) {
+            if (number < fromSegment) {
+                Files.deleteIfExists(snapshotFile(directory, number));
+            }
+        }
+        List<Path> leftovers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".snap.tmp")).forEach(leftovers::add);
+        }
+        for (Path file : leftovers) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static <T> void writeSection(DataOutputStream out, EntityCodec<T> codec, Store<T> store) throws IOException {
+        out.writeByte(codec.type());
+        out.writeInt(store.peekNextId());
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(256);
+        DataOutputStream entryOut = new DataOutputStream(entry);
+        for (T entity : store.view()) {
+            entry.reset();
+            codec.write(entity, entryOut);
+            out.writeByte(ENTRY);
+            entry.writeTo(out);
+        }
+        out.writeByte(END_OF_SECTION);
+    }
+
+    private static <T> void readSection(ByteBuffer in, EntityCodec<T> codec, Store<T> store) throws IOException {
+        byte type = in.get();
+        if (type != codec.type()) {
+            throw new IOException("Snapshot sections are out of order");
+        }
+        int nextId = in.getInt();
+        while (in.get() == ENTRY) {
+            WriteAheadLog.restore(type, true, in);
+        }
+        store.advanceIdPast(nextId - 1);
+    }
+
+    private static void writeStockSection(DataOutputStream out) throws IOException {
+        out.writeByte(WriteAheadLog.STOCK);
+        for (Map.Entry<Integer, AtomicLong> counter : InventoryData.counters()) {
+            long value = counter.getValue().get();
+            out.writeByte(ENTRY);
+            out.writeInt(counter.getKey());
+            out.writeInt(InventoryData.versionOf(value));
+            out.writeInt(InventoryData.stockOf(value));
+        }
+        out.writeByte(END_OF_SECTION);
+    }
+
+    private static void readStockSection(ByteBuffer in) throws IOException {
+        if (in.get() != WriteAheadLog.STOCK) {
+            throw new IOException("Snapshot sections are out of order");
+        }
+        while (in.get() == ENTRY) {
+            WriteAheadLog.restore(WriteAheadLog.STOCK, true, in);
+        }
+    }
+
+    private static Path snapshotFile(Path directory, long fromSegment) {
+        return directory.resolve(String.format("bookstore-%06d.snap", fromSegment));
+    }
+
+    // Numbers of the snapshot files in the directory, in ascending order
+    private static List<Long> listSnapshots(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SNAPSHOT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
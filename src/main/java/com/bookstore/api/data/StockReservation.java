@@ -0,0 +1,41 @@
+package com.bookstore.api.data;
+
+/**
+ * Outcome of a stock operation in InventoryData.
+ * On success, available is the stock left after the operation;
+ * on failure, it is the stock that was available when the request was rejected.
+ */
+public final class StockReservation {
+    private final boolean reserved;
+    private final int available;
+
+    private StockReservation(boolean reserved, int available) {
+        this.reserved = reserved;
+        this.available = available;
+    }
+
+    public static StockReservation accepted(int remaining) {
+        return new StockReservation(true, remaining);
+    }
+
+    public static StockReservation rejected(int available) {
+        return new StockReservation(false, available);
+    }
+
+    public boolean isReserved() {
+        return reserved;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "StockReservation{" +
+                "reserved=" + reserved +
+                ", available=" + available +
+                '}';
+    }
+}
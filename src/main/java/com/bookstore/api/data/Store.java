@@ -0,0 +1,50 @@
+package com.bookstore.api.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Thread-safe in-memory store for a single entity type, keyed by integer id.
+ * EntityStore is the general implementation; ColumnarBookStore is a compact
+ * alternative for the book catalog.
+ *
+ * @param <T> the entity type
+ */
+public interface Store<T> {
+    // Method to allocate the next id for a new entity
+    int nextId();
+
+    // Method to peek at the id the next call to nextId will return
+    int peekNextId();
+
+    // Method to make sure future ids are allocated after an id restored from disk
+    void advanceIdPast(int id);
+
+    // Method to find an entity by ID
+    T get(int id);
+
+    // Method to insert or replace an entity, returning the previous one
+    T put(int id, T entity);
+
+    // Method to atomically recompute the entity stored under an ID
+    T compute(int id, BiFunction<Integer, T, T> remapping);
+
+    // Method to remove an entity, returning the removed one
+    T remove(int id);
+
+    // Method to check whether an ID is present
+    boolean contains(int id);
+
+    // Method to get a point-in-time copy of all entities
+    List<T> values();
+
+    // Method to get a read-only, weakly consistent live view of all entities, without copying
+    Collection<T> view();
+
+    // Method to get up to limit entities with ids greater than afterId (null for the first page)
+    Page<T> page(Integer afterId, int limit);
+
+    // Method to get the number of entities
+    int size();
+}
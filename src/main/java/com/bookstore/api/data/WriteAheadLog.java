@@ -0,0 +1,598 @@
+package com.bookstore.api.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log for the in-memory data layer.
+ * Every change to the five entity stores and to the stock counters is
+ * appended as a checksummed binary record; on startup the log is replayed
+ * to rebuild the stores.
+ * <p>
+ * Records are appended to an in-memory buffer under a short lock and written
+ * by a single writer thread, which swaps the buffer out and fsyncs it in one
+ * go (group commit), so many concurrent writes share each fsync. How long a
+ * write waits for that fsync is set by the {@link DurabilityMode}.
+ * <p>
+ * The log is split into numbered segments. A background task periodically
+ * rotates to a new segment and writes a {@link Snapshots snapshot} of all
+ * stores, after which older segments are deleted; startup loads the latest
+ * snapshot and replays only the segments written since.
+ * <p>
+ * The log is disabled unless the bookstore.wal.dir system property is set.
+ */
+public final class WriteAheadLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    public static final String DIRECTORY_PROPERTY = "bookstore.wal.dir";
+    public static final String DURABILITY_PROPERTY = "bookstore.wal.durability";
+    public static final String BATCH_MILLIS_PROPERTY = "bookstore.wal.batchMillis";
+    public static final String ASYNC_FLUSH_MILLIS_PROPERTY = "bookstore.wal.asyncFlushMillis";
+    public static final String SNAPSHOT_INTERVAL_PROPERTY = "bookstore.snapshot.intervalSeconds";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("bookstore-(\\d+)\\.wal");
+
+    // Record operations
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    // Record type for stock counters, next to the entity types of EntityCodec
+    static final byte STOCK = 6;
+
+    private static final int FRAME_HEADER_BYTES = 8;
+    // In BATCHED mode, a batch of at least this many records is synced without waiting for more
+    private static final long BATCH_TARGET_RECORDS = 64;
+
+    private static volatile WriteAheadLog active;
+    // Highest sequence number logged by this thread inside runBatched, or null outside of it
+    private static final ThreadLocal<long[]> deferredLsn = new ThreadLocal<>();
+
+    private final Path directory;
+    private final DurabilityMode mode;
+    private final long batchMillis;
+    private final long asyncFlushMillis;
+    private final Thread writer;
+    private final ScheduledExecutorService snapshotScheduler;
+    // Only touched by the writer thread after construction
+    private FileChannel channel;
+
+    // Writes in flight per epoch; a rotation bumps the epoch and waits for the old one to drain
+    private final LongAdder[] writesInFlight = {new LongAdder(), new LongAdder()};
+    private volatile int epoch;
+
+    // Guards the buffers and counters below; writers, waiters and the log thread all use it
+    private final Object lock = new Object();
+    private FrameBuffer pending = new FrameBuffer();
+    private FrameBuffer writing = new FrameBuffer();
+    private long appendedLsn;
+    private long durableLsn;
+    private boolean running = true;
+    private boolean writerIdle;
+    private IOException failure;
+    private long segment;
+    private long requestedSegment;
+
+    private WriteAheadLog(Path directory, long segment, DurabilityMode mode, long batchMillis, long asyncFlushMillis,
+                          long snapshotIntervalSeconds) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.mode = mode;
+        this.batchMillis = batchMillis;
+        this.asyncFlushMillis = asyncFlushMillis;
+        this.channel = openSegment(directory, segment);
+        this.writer = new Thread(this::runWriter, "bookstore-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        if (snapshotIntervalSeconds > 0) {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "bookstore-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.snapshotScheduler = null;
+        }
+    }
+
+    // Method to replay and open the log configured through system properties; a no-op when none is configured
+    public static synchronized void start() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory == null || directory.isEmpty()) {
+            LOGGER.info("Write-ahead log disabled: {} is not set", DIRECTORY_PROPERTY);
+            return;
+        }
+        DurabilityMode mode = DurabilityMode.valueOf(System.getProperty(DURABILITY_PROPERTY, DurabilityMode.PER_WRITE.name()));
+        long batchMillis = Long.getLong(BATCH_MILLIS_PROPERTY, 2);
+        long asyncFlushMillis = Long.getLong(ASYNC_FLUSH_MILLIS_PROPERTY, 200);
+        long snapshotIntervalSeconds = Long.getLong(SNAPSHOT_INTERVAL_PROPERTY, 300);
+        start(Paths.get(directory), mode, batchMillis, asyncFlushMillis, snapshotIntervalSeconds);
+    }
+
+    // Method to load the latest snapshot, replay the log in the given directory and open it for appends
+    public static synchronized void start(Path directory, DurabilityMode mode, long batchMillis, long asyncFlushMillis,
+                                          long snapshotIntervalSeconds) {
+        if (active != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            long firstSegment = Snapshots.loadLatest(directory);
+            List<Long> segments = listSegments(directory);
+            long lastSegment = segments.isEmpty() ? firstSegment : Math.max(firstSegment, segments.get(segments.size() - 1));
+            long records = 0;
+            for (long number : segments) {
+                if (number >= firstSegment) {
+                    records += replay(segmentFile(directory, number), number == lastSegment);
+                }
+            }
+            CustomerData.rebuildEmailIndex();
+            InventoryData.publishAll();
+            active = new WriteAheadLog(directory, lastSegment + 1, mode, batchMillis, asyncFlushMillis, snapshotIntervalSeconds);
+            LOGGER.info("Write-ahead log opened in {} in {} mode after replaying {} records from segment {}",
+                    directory, mode, records, firstSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + directory, e);
+        }
+    }
+
+    // Method to write a snapshot now and drop the log segments it covers
+    public static void snapshot() {
+        WriteAheadLog log = active;
+        if (log == null) {
+            throw new IllegalStateException("Write-ahead log is not enabled");
+        }
+        log.writeSnapshot();
+    }
+
+    // Method to flush outstanding records and close the log
+    public static synchronized void stop() {
+        WriteAheadLog log = active;
+        if (log == null) {
+            return;
+        }
+        active = null;
+        log.close();
+    }
+
+    // Method to check whether mutations are currently being logged
+    public static boolean isEnabled() {
+        return active != null;
+    }
+
+    // Appends an insert/replace record; returns its sequence number, or 0 when logging is off
+    static <T> long appendPut(EntityCodec<T> codec, T entity) {
+        WriteAheadLog log = active;
+        if (log == null) {
+            return 0;
+        }
+        FrameBuffer body = new FrameBuffer();
+        try {
+            body.data.writeByte(codec.type());
+            body.data.writeByte(PUT);
+            codec.write(entity, body.data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return log.append(body);
+    }
+
+    // Appends a delete record; returns its sequence number, or 0 when logging is off
+    static long appendDelete(EntityCodec<?> codec, int id) {
+        WriteAheadLog log = active;
+        if (log == null) {
+            return 0;
+        }
+        FrameBuffer body = new FrameBuffer();
+        try {
+            body.data.writeByte(codec.type());
+            body.data.writeByte(DELETE);
+            body.data.writeInt(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return log.append(body);
+    }
+
+    // Appends a stock counter record; returns its sequence number, or 0 when logging is off
+    static long appendStock(int bookId, int version, int stock) {
+        WriteAheadLog log = active;
+        if (log == null) {
+            return 0;
+        }
+        FrameBuffer body = new FrameBuffer();
+        try {
+            body.data.writeByte(STOCK);
+            body.data.writeByte(PUT);
+            body.data.writeInt(bookId);
+            body.data.writeInt(version);
+            body.data.writeInt(stock);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return log.append(body);
+    }
+
+    // Marks the start of a store write that may append to the log; returns the epoch to pass to endWrite
+    static int beginWrite() {
+        WriteAheadLog log = active;
+        if (log == null) {
+            return -1;
+        }
+        int current = log.epoch;
+        log.writesInFlight[current & 1].increment();
+        return current;
+    }
+
+    // Marks the end of a store write, once its new value is visible to readers
+    static void endWrite(int writeEpoch) {
+        WriteAheadLog log = active;
+        if (writeEpoch >= 0 && log != null) {
+            log.writesInFlight[writeEpoch & 1].decrement();
+        }
+    }
+
+    // Blocks until the record with the given sequence number is as durable as the mode requires;
+    // inside runBatched the wait is deferred to the end of the batch
+    static void awaitDurable(long lsn) {
+        WriteAheadLog log = active;
+        if (lsn == 0 || log == null || log.mode == DurabilityMode.ASYNC) {
+            return;
+        }
+        long[] deferred = deferredLsn.get();
+        if (deferred != null) {
+            deferred[0] = Math.max(deferred[0], lsn);
+            return;
+        }
+        log.await(lsn);
+    }
+
+    // Runs a group of writes on this thread, then waits once until all of them are durable.
+    // Each write is applied and visible as usual; only the caller's wait is shared.
+    static void runBatched(Runnable writes) {
+        if (deferredLsn.get() != null) {
+            writes.run();
+            return;
+        }
+        long[] deferred = new long[1];
+        deferredLsn.set(deferred);
+        try {
+            writes.run();
+        } finally {
+            deferredLsn.remove();
+        }
+        awaitDurable(deferred[0]);
+    }
+
+    private long append(FrameBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.buffer(), 0, body.size());
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            try {
+                pending.data.writeInt(body.size());
+                pending.data.writeInt((int) crc.getValue());
+                pending.write(body.buffer(), 0, body.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            long lsn = ++appendedLsn;
+            if (writerIdle) {
+                lock.notifyAll();
+            }
+            return lsn;
+        }
+    }
+
+    private void await(long lsn) {
+        synchronized (lock) {
+            boolean interrupted = false;
+            while (durableLsn < lsn && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (durableLsn < lsn) {
+                throw new IllegalStateException("Write-ahead log failed", failure);
+            }
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                long pendingRecords;
+                synchronized (lock) {
+                    while (running && pending.size() == 0 && requestedSegment == 0) {
+                        writerIdle = true;
+                        lock.wait();
+                    }
+                    writerIdle = false;
+                    if (!running && pending.size() == 0) {
+                        return;
+                    }
+                    pendingRecords = appendedLsn - durableLsn;
+                }
+                // Let more records join a small batch before paying for the fsync
+                long window = mode == DurabilityMode.ASYNC ? asyncFlushMillis
+                        : mode == DurabilityMode.BATCHED && pendingRecords < BATCH_TARGET_RECORDS ? batchMillis : 0;
+                if (window > 0 && isRunning()) {
+                    Thread.sleep(window);
+                }
+                long batchLsn;
+                long rotateTo;
+                synchronized (lock) {
+                    FrameBuffer full = pending;
+                    pending = writing;
+                    writing = full;
+                    batchLsn = appendedLsn;
+                    rotateTo = requestedSegment;
+                    if (rotateTo != 0) {
+                        // Everything appended from here on belongs to the new segment and the new epoch
+                        epoch++;
+                    }
+                }
+                ByteBuffer batch = ByteBuffer.wrap(writing.buffer(), 0, writing.size());
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                writing.reset();
+                if (rotateTo != 0) {
+                    channel.close();
+                    channel = openSegment(directory, rotateTo);
+                }
+                synchronized (lock) {
+                    durableLsn = batchLsn;
+                    if (rotateTo != 0) {
+                        segment = rotateTo;
+                        requestedSegment = 0;
+                    }
+                    lock.notifyAll();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            LOGGER.error("Write-ahead log writer failed", e);
+            synchronized (lock) {
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+                running = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean isRunning() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    // Switches appends to a new segment; returns once no write logged to an older segment is still in flight
+    private long rotate() {
+        int oldEpoch;
+        long newSegment;
+        synchronized (lock) {
+            oldEpoch = epoch;
+            newSegment = segment + 1;
+            requestedSegment = newSegment;
+            lock.notifyAll();
+            boolean interrupted = false;
+            while (segment != newSegment && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (segment != newSegment) {
+                throw new IllegalStateException("Write-ahead log failed", failure);
+            }
+        }
+        // A write that logged to the old segment may not have published its value yet
+        while (writesInFlight[oldEpoch & 1].sum() != 0) {
+            Thread.yield();
+        }
+        return newSegment;
+    }
+
+    private synchronized void writeSnapshot() {
+        long started = System.nanoTime();
+        long fromSegment = rotate();
+        try {
+            Snapshots.write(directory, fromSegment);
+            for (long number : listSegments(directory)) {
+                if (number < fromSegment) {
+                    Files.deleteIfExists(segmentFile(directory, number));
+                }
+            }
+            Snapshots.deleteOlderThan(directory, fromSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot in " + directory, e);
+        }
+        LOGGER.info("Snapshot covering log segments before {} written in {} ms",
+                fromSegment, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            writeSnapshot();
+        } catch (RuntimeException e) {
+            LOGGER.error("Scheduled snapshot failed", e);
+        }
+    }
+
+    private void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close write-ahead log", e);
+        }
+    }
+
+    private static FileChannel openSegment(Path directory, long number) throws IOException {
+        return FileChannel.open(segmentFile(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("bookstore-%06d.wal", number));
+    }
+
+    // Numbers of the segment files in the directory, in ascending order
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    // Applies every intact record in the file. A torn or corrupt tail is cut off when the file is the
+    // last segment; in an earlier one it fails, as the later segments would be replayed over the gap.
+    private static long replay(Path file, boolean lastSegment) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long records = 0;
+        long validBytes = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream stream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(in), 1 << 16));
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] body;
+                try {
+                    int length = stream.readInt();
+                    int checksum = stream.readInt();
+                    if (length < 2 || length > in.size() - validBytes - FRAME_HEADER_BYTES) {
+                        break;
+                    }
+                    body = new byte[length];
+                    stream.readFully(body);
+                    crc.reset();
+                    crc.update(body, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(body));
+                validBytes += FRAME_HEADER_BYTES + body.length;
+                records++;
+            }
+            if (validBytes < in.size()) {
+                if (!lastSegment) {
+                    throw new IOException("Incomplete record at byte " + validBytes + " of " + file
+                            + ", which is followed by later log segments");
+                }
+                LOGGER.warn("Truncating write-ahead log {} from {} to {} bytes after an incomplete record", file, in.size(), validBytes);
+                in.truncate(validBytes);
+            }
+        }
+        return records;
+    }
+
+    private static void apply(ByteBuffer record) {
+        byte type = record.get();
+        boolean put = record.get() == PUT;
+        restore(type, put, record);
+    }
+
+    // Re-applies one encoded change to the stores; shared by log replay and snapshot loading
+    static void restore(byte type, boolean put, ByteBuffer record) {
+        if (type == STOCK) {
+            InventoryData.restoreStock(record.getInt(), record.getInt(), record.getInt());
+        } else if (type == EntityCodec.BOOK.type()) {
+            if (put) {
+                BookData.restoreBook(EntityCodec.BOOK.read(record));
+            } else {
+                BookData.restoreBookDeletion(record.getInt());
+            }
+        } else if (type == EntityCodec.AUTHOR.type()) {
+            if (put) {
+                AuthorData.restoreAuthor(EntityCodec.AUTHOR.read(record));
+            } else {
+                AuthorData.restoreAuthorDeletion(record.getInt());
+            }
+        } else if (type == EntityCodec.CUSTOMER.type()) {
+            if (put) {
+                CustomerData.restoreCustomer(EntityCodec.CUSTOMER.read(record));
+            } else {
+                CustomerData.restoreCustomerDeletion(record.getInt());
+            }
+        } else if (type == EntityCodec.CART.type()) {
+            if (put) {
+                CartData.restoreCart(EntityCodec.CART.read(record));
+            } else {
+                CartData.restoreCartDeletion(record.getInt());
+            }
+        } else if (type == EntityCodec.ORDER.type() && put) {
+            OrderData.restoreOrder(EntityCodec.ORDER.read(record));
+        } else {
+            throw new IllegalStateException("Unknown write-ahead log record type: " + type);
+        }
+    }
+
+    // Growable byte buffer with direct access to its backing array
+    private static final class FrameBuffer extends ByteArrayOutputStream {
+        final DataOutputStream data = new DataOutputStream(this);
+
+        FrameBuffer() {
+            super(256);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
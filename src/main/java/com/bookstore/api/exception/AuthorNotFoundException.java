@@ -1,7 +1,9 @@
 package com.bookstore.api.exception;
 
-public class AuthorNotFoundException extends RuntimeException {
+import javax.ws.rs.core.Response;
+
+public class AuthorNotFoundException extends BookstoreException {
     public AuthorNotFoundException(String message) {
-        super(message);
+        super(Response.Status.NOT_FOUND, "Author Not Found", message);
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.bookstore.api.exception;
 
-public class BookNotFoundException extends RuntimeException {
+import javax.ws.rs.core.Response;
+
+public class BookNotFoundException extends BookstoreException {
     public BookNotFoundException(String message) {
-        super(message);
+        super(Response.Status.NOT_FOUND, "Book Not Found", message);
     }
 }
\ No newline at end of file
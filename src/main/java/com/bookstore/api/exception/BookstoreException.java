@@ -0,0 +1,31 @@
+package com.bookstore.api.exception;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Base class of the API's domain exceptions. Each one carries the HTTP status
+ * and error label it is answered with, so a single mapper can turn any of
+ * them into an {@link ErrorResponse}.
+ * <p>
+ * Unknown ids, invalid input and lack of stock are everyday outcomes of a
+ * request, not bugs, and nobody reads their stack traces; so these exceptions
+ * skip capturing one, which is most of the cost of creating an exception.
+ */
+public abstract class BookstoreException extends RuntimeException {
+    private final Response.Status status;
+    private final String error;
+
+    protected BookstoreException(Response.Status status, String error, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.error = error;
+    }
+
+    public Response.Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,7 +1,9 @@
 package com.bookstore.api.exception;
 
-public class CartNotFoundException extends RuntimeException {
+import javax.ws.rs.core.Response;
+
+public class CartNotFoundException extends BookstoreException {
     public CartNotFoundException(String message) {
-        super(message);
+        super(Response.Status.NOT_FOUND, "Cart Not Found", message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.bookstore.api.exception;
+
+import javax.ws.rs.core.Response;
+
+public class CheckoutUnavailableException extends BookstoreException {
+    public CheckoutUnavailableException(String message) {
+        super(Response.Status.SERVICE_UNAVAILABLE, "Service Unavailable", message);
+    }
+}
@@ -1,7 +1,9 @@
 package com.bookstore.api.exception;
 
-public class CustomerNotFoundException extends RuntimeException {
+import javax.ws.rs.core.Response;
+
+public class CustomerNotFoundException extends BookstoreException {
     public CustomerNotFoundException(String message) {
-        super(message);
+        super(Response.Status.NOT_FOUND, "Customer Not Found", message);
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.bookstore.api.exception;
 
-public class InvalidInputException extends RuntimeException {
+import javax.ws.rs.core.Response;
+
+public class InvalidInputException extends BookstoreException {
     public InvalidInputException(String message) {
-        super(message);
+        super(Response.Status.BAD_REQUEST, "Invalid Input", message);
     }
 }
\ No newline at end of file
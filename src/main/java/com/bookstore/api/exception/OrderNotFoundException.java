@@ -1,8 +1,10 @@
 package com.bookstore.api.exception;
 
-public class OrderNotFoundException extends RuntimeException {
+import javax.ws.rs.core.Response;
+
+public class OrderNotFoundException extends BookstoreException {
     public OrderNotFoundException(String message) {
-        super(message);
+        super(Response.Status.NOT_FOUND, "Order Not Found", message);
     }
 }
 
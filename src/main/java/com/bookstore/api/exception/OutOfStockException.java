@@ -1,5 +1,7 @@
 package com.bookstore.api.exception;
 
-public class OutOfStockException extends RuntimeException{
-    public OutOfStockException(String message) { super(message); }
+import javax.ws.rs.core.Response;
+
+public class OutOfStockException extends BookstoreException {
+    public OutOfStockException(String message) { super(Response.Status.BAD_REQUEST, "Out of Stock", message); }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.bookstore.api.exception;
+
+import javax.ws.rs.core.Response;
+
+public class PreconditionFailedException extends BookstoreException {
+    public PreconditionFailedException(String message) {
+        super(Response.Status.PRECONDITION_FAILED, "Precondition Failed", message);
+    }
+}
@@ -1,28 +0,0 @@
-package com.bookstore.api.exception.mapper;
-
-import com.bookstore.api.exception.AuthorNotFoundException;
-
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
-import javax.ws.rs.ext.ExceptionMapper;
-import javax.ws.rs.ext.Provider;
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * Exception mapper for AuthorNotFoundException.
- * Converts the exception to a JSON response with a 404 status code.
- */
-@Provider
-public class AuthorNotFoundExceptionMapper implements ExceptionMapper<AuthorNotFoundException> {
-    @Override
-    public Response toResponse(AuthorNotFoundException exception) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Author Not Found");
-        error.put("message", exception.getMessage());
-        return Response.status(Response.Status.NOT_FOUND)
-                .entity(error)
-                .type(MediaType.APPLICATION_JSON)
-                .build();
-    }
-}
\ No newline at end of file
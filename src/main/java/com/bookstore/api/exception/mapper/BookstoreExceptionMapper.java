@@ -0,0 +1,50 @@
+package com.bookstore.api.exception.mapper;
+
+import com.bookstore.api.config.ObjectMapperProvider;
+import com.bookstore.api.exception.BookstoreException;
+import com.bookstore.api.exception.CheckoutUnavailableException;
+import com.bookstore.api.exception.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Exception mapper for all domain exceptions.
+ * Converts the exception to a JSON ErrorResponse with the exception's status
+ * code and error label. The body is serialized here, by a writer built once,
+ * and handed to Jersey as bytes, so error responses skip the per-response
+ * lookup of a JSON provider.
+ */
+@Provider
+public class BookstoreExceptionMapper implements ExceptionMapper<BookstoreException> {
+    private static final ObjectWriter ERROR_WRITER = ObjectMapperProvider.mapper().writerFor(ErrorResponse.class);
+    // Queued checkouts drain within about a second
+    private static final int CHECKOUT_RETRY_AFTER_SECONDS = 1;
+
+    @Override
+    public Response toResponse(BookstoreException exception) {
+        Response.ResponseBuilder response = errorResponse(exception.getStatus(), exception.getError(), exception.getMessage());
+        if (exception instanceof CheckoutUnavailableException) {
+            response.header(HttpHeaders.RETRY_AFTER, CHECKOUT_RETRY_AFTER_SECONDS);
+        }
+        return response.build();
+    }
+
+    // Method to build a JSON error response; shared with the mappers of non-domain exceptions
+    static Response.ResponseBuilder errorResponse(Response.Status status, String error, String message) {
+        byte[] body;
+        try {
+            body = ERROR_WRITER.writeValueAsBytes(new ErrorResponse(error, message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize error response", e);
+        }
+        return Response.status(status)
+                .entity(body)
+                .type(MediaType.APPLICATION_JSON);
+    }
+}
@@ -1,11 +1,8 @@
 package com.bookstore.api.exception.mapper;
 
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
-import java.util.HashMap;
-import java.util.Map;
 
 
 /**
@@ -16,12 +13,7 @@ import java.util.Map;
 public class IllegalArgumentExceptionMapper implements ExceptionMapper<IllegalArgumentException> {
     @Override
     public Response toResponse(IllegalArgumentException exception) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Invalid Input");
-        error.put("message", exception.getMessage());
-        return Response.status(Response.Status.BAD_REQUEST)
-                .entity(error)
-                .type(MediaType.APPLICATION_JSON)
+        return BookstoreExceptionMapper.errorResponse(Response.Status.BAD_REQUEST, "Invalid Input", exception.getMessage())
                 .build();
     }
-}
\ No newline at end of file
+}
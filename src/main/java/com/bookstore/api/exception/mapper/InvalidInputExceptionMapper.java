@@ -1,29 +0,0 @@
-package com.bookstore.api.exception.mapper;
-
-import com.bookstore.api.exception.InvalidInputException;
-
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
-import javax.ws.rs.ext.ExceptionMapper;
-import javax.ws.rs.ext.Provider;
-import java.util.HashMap;
-import java.util.Map;
-
-
-/**
- * Exception mapper for InvalidInputException.
- * Converts the exception to a JSON response with a 400 status code.
- */
-@Provider
-public class InvalidInputExceptionMapper implements ExceptionMapper<InvalidInputException> {
-    @Override
-    public Response toResponse(InvalidInputException exception) {
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Invalid Input");
-        error.put("message", exception.getMessage());
-        return Response.status(Response.Status.BAD_REQUEST)
-                .entity(error)
-                .type(MediaType.APPLICATION_JSON)
-                .build();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.bookstore.api.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and response counts of one resource method or exception mapper.
+ * Recording is lock-free and allocates nothing.
+ */
+public final class EndpointMetrics {
+    private final String labels;
+    // Latency in nanoseconds
+    private final Histogram latency = new Histogram();
+    // Responses by status class: index 1 for 1xx up to 5 for 5xx; index 0 for anything else
+    private final LongAdder[] responses = new LongAdder[6];
+
+    EndpointMetrics(String labels) {
+        this.labels = labels;
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new LongAdder();
+        }
+    }
+
+    // Records one request that took the given time and ended with the given status
+    public void record(long nanos, int status) {
+        latency.record(nanos);
+        int statusClass = status / 100;
+        responses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+    }
+
+    // Prometheus labels identifying this endpoint, e.g. resource="BookResource",method="getBookById"
+    public String getLabels() {
+        return labels;
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    // Number of responses in the status class (1 to 5, or 0 for unknown)
+    public long getResponses(int statusClass) {
+        return responses[statusClass].sum();
+    }
+
+    // Number of responses with a 4xx or 5xx status
+    public long getErrors() {
+        return responses[4].sum() + responses[5].sum();
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookstore.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values, such as latencies in
+ * microseconds or batch sizes.
+ * <p>
+ * Buckets are log-linear: every power of two is split into
+ * {@value #SUB_BUCKETS} equal sub-buckets, so a reported percentile is at
+ * most 12.5% above the true value while the whole range of long fits in
+ * under 500 counters. Recording is a single atomic increment, so request
+ * threads can record concurrently without contention on a lock.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // Records one value; negative values are recorded as 0
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        counts.incrementAndGet(bucketOf(clamped));
+        count.increment();
+        sum.add(clamped);
+        if (clamped > max.get()) {
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    // Number of recorded values
+    public long getCount() {
+        return count.sum();
+    }
+
+    // Sum of the recorded values
+    public long getSum() {
+        return sum.sum();
+    }
+
+    // Largest recorded value
+    public long getMax() {
+        return max.get();
+    }
+
+    // Mean of the recorded values, or 0 if there are none
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), capped at the maximum; 0 if empty
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // Values below 2 * SUB_BUCKETS get a bucket each; above, the top SUB_BUCKET_BITS + 1 bits pick the bucket
+    private static int bucketOf(long value) {
+        int exponent = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return exponent * SUB_BUCKETS + (int) (value >>> exponent);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        int exponent = Math.max(0, bucket / SUB_BUCKETS - 1);
+        long mantissa = bucket - (long) exponent * SUB_BUCKETS;
+        long upper = ((mantissa + 1) << exponent) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
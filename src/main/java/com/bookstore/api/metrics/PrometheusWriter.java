@@ -0,0 +1,54 @@
+package com.bookstore.api.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4).
+ * Histograms are written as summaries with p50, p99 and p99.9 quantiles.
+ */
+public final class PrometheusWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final Writer out;
+
+    public PrometheusWriter(Writer out) {
+        this.out = out;
+    }
+
+    // Writes the HELP and TYPE lines that precede the samples of a metric
+    public void describe(String name, String type, String help) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    // Writes one sample; labels is a comma-separated list of label pairs, or empty
+    public void sample(String name, String labels, double value) throws IOException {
+        out.write(name);
+        if (!labels.isEmpty()) {
+            out.write("{" + labels + "}");
+        }
+        out.write(" " + format(value) + "\n");
+    }
+
+    // Writes a histogram as a summary, multiplying recorded values by scale (e.g. 1e-9 for nanoseconds to seconds)
+    public void summary(String name, String labels, Histogram histogram, double scale) throws IOException {
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : QUANTILES) {
+            sample(name, separator + label("quantile", format(quantile)), histogram.getPercentile(quantile * 100) * scale);
+        }
+        sample(name + "_sum", labels, histogram.getSum() * scale);
+        sample(name + "_count", labels, histogram.getCount());
+    }
+
+    // Formats a label pair, escaping the value
+    public static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+}
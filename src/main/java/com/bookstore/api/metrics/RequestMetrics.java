@@ -0,0 +1,86 @@
+package com.bookstore.api.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Request metrics per resource method and per mapped exception, filled in by
+ * {@link RequestMetricsListener}. Metrics for an endpoint are created the
+ * first time it is seen and then only looked up, so recording a request does
+ * not allocate.
+ */
+public final class RequestMetrics {
+    private static final ConcurrentMap<Method, EndpointMetrics> resourceMethods = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, EndpointMetrics> mappedExceptions = new ConcurrentHashMap<>();
+    // Requests that matched no resource method
+    private static final EndpointMetrics unmatched = new EndpointMetrics(
+            PrometheusWriter.label("resource", "none") + "," + PrometheusWriter.label("method", "none"));
+
+    private RequestMetrics() {
+    }
+
+    // Metrics of the resource method, created on first use
+    public static EndpointMetrics forResourceMethod(Method method) {
+        EndpointMetrics metrics = resourceMethods.get(method);
+        return metrics != null ? metrics : resourceMethods.computeIfAbsent(method, key -> new EndpointMetrics(
+                PrometheusWriter.label("resource", key.getDeclaringClass().getSimpleName()) + ","
+                        + PrometheusWriter.label("method", key.getName())));
+    }
+
+    // Metrics of an exception class and the mapper that answers it, created on first use
+    public static EndpointMetrics forMappedException(Class<?> mapperClass, Class<?> exceptionClass) {
+        EndpointMetrics metrics = mappedExceptions.get(exceptionClass);
+        return metrics != null ? metrics : mappedExceptions.computeIfAbsent(exceptionClass, key -> new EndpointMetrics(
+                PrometheusWriter.label("mapper", mapperClass.getSimpleName()) + ","
+                        + PrometheusWriter.label("exception", key.getSimpleName())));
+    }
+
+    public static EndpointMetrics unmatched() {
+        return unmatched;
+    }
+
+    // Method to write all request metrics
+    public static void write(PrometheusWriter writer) throws IOException {
+        List<EndpointMetrics> endpoints = sorted(resourceMethods.values());
+        endpoints.add(unmatched);
+        writer.describe("bookstore_request_duration_seconds", "summary",
+                "Time from receiving a request to finishing its response, per resource method.");
+        for (EndpointMetrics endpoint : endpoints) {
+            writer.summary("bookstore_request_duration_seconds", endpoint.getLabels(), endpoint.getLatency(), 1e-9);
+        }
+        writer.describe("bookstore_responses_total", "counter", "Responses per resource method and status class.");
+        writeResponses(writer, "bookstore_responses_total", endpoints);
+
+        List<EndpointMetrics> mappers = sorted(mappedExceptions.values());
+        writer.describe("bookstore_mapped_request_duration_seconds", "summary",
+                "Time to handle requests whose exception was turned into the response by the mapper.");
+        for (EndpointMetrics mapper : mappers) {
+            writer.summary("bookstore_mapped_request_duration_seconds", mapper.getLabels(), mapper.getLatency(), 1e-9);
+        }
+        writer.describe("bookstore_mapped_responses_total", "counter", "Responses produced per exception mapper, exception and status class.");
+        writeResponses(writer, "bookstore_mapped_responses_total", mappers);
+    }
+
+    private static void writeResponses(PrometheusWriter writer, String name, List<EndpointMetrics> endpoints) throws IOException {
+        for (EndpointMetrics endpoint : endpoints) {
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                long responses = endpoint.getResponses(statusClass);
+                if (responses > 0) {
+                    writer.sample(name, endpoint.getLabels() + "," + PrometheusWriter.label("status", statusClass + "xx"), responses);
+                }
+            }
+        }
+    }
+
+    private static List<EndpointMetrics> sorted(Iterable<EndpointMetrics> metrics) {
+        List<EndpointMetrics> list = new ArrayList<>();
+        metrics.forEach(list::add);
+        list.sort(Comparator.comparing(EndpointMetrics::getLabels));
+        return list;
+    }
+}
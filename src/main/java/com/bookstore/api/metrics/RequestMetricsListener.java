@@ -0,0 +1,106 @@
+package com.bookstore.api.metrics;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.internal.process.MappableException;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Times every request and records it in {@link RequestMetrics} under the
+ * resource method that handled it and, if an exception was mapped to the
+ * response, under the exception mapper and the exception as well.
+ * <p>
+ * Jersey's monitoring events are used rather than a request/response filter
+ * because only they report which exception mapper produced a response.
+ * The same stateless listener serves every request, and the state of the
+ * request in progress lives in a per-thread holder that is reused, so the
+ * request path allocates nothing. Resources here are synchronous, so a
+ * request starts and finishes on the same thread; a request that does not
+ * is skipped rather than mis-timed.
+ */
+public class RequestMetricsListener implements ApplicationEventListener {
+    private static final ThreadLocal<InFlight> inFlight = ThreadLocal.withInitial(InFlight::new);
+
+    // The request being handled by the current thread
+    private static final class InFlight {
+        ContainerRequest request;
+        long startNanos;
+        EndpointMetrics endpoint;
+        EndpointMetrics mapper;
+    }
+
+    private static final RequestEventListener REQUEST_LISTENER = event -> {
+        InFlight current = inFlight.get();
+        if (current.request != event.getContainerRequest()) {
+            return;
+        }
+        switch (event.getType()) {
+            case RESOURCE_METHOD_START:
+                current.endpoint = RequestMetrics.forResourceMethod(
+                        event.getUriInfo().getMatchedResourceMethod().getInvocable().getHandlingMethod());
+                break;
+            case EXCEPTION_MAPPER_FOUND:
+                current.mapper = RequestMetrics.forMappedException(event.getExceptionMapper().getClass(),
+                        unwrap(event.getException()).getClass());
+                break;
+            case FINISHED:
+                long elapsed = System.nanoTime() - current.startNanos;
+                ContainerResponse response = event.getContainerResponse();
+                int status = response != null ? response.getStatus() : 500;
+                (current.endpoint != null ? current.endpoint : RequestMetrics.unmatched()).record(elapsed, status);
+                if (current.mapper != null) {
+                    current.mapper.record(elapsed, status);
+                }
+                current.request = null;
+                current.endpoint = null;
+                current.mapper = null;
+                break;
+            default:
+                break;
+        }
+    };
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        if (event.getType() == ApplicationEvent.Type.INITIALIZATION_FINISHED) {
+            // Register every resource method up front, so endpoints are listed before their first request
+            for (Resource resource : event.getResourceModel().getResources()) {
+                register(resource);
+            }
+        }
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent event) {
+        InFlight current = inFlight.get();
+        current.request = event.getContainerRequest();
+        current.startNanos = System.nanoTime();
+        current.endpoint = null;
+        current.mapper = null;
+        return REQUEST_LISTENER;
+    }
+
+    // Jersey wraps exceptions thrown by resource methods before mapping them
+    private static Throwable unwrap(Throwable exception) {
+        while (exception instanceof MappableException && exception.getCause() != null) {
+            exception = exception.getCause();
+        }
+        return exception;
+    }
+
+    private static void register(Resource resource) {
+        for (ResourceMethod method : resource.getResourceMethods()) {
+            if (method.getInvocable().getHandlingMethod() != null) {
+                RequestMetrics.forResourceMethod(method.getInvocable().getHandlingMethod());
+            }
+        }
+        for (Resource child : resource.getChildResources()) {
+            register(child);
+        }
+    }
+}
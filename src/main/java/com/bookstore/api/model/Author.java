@@ -1,9 +1,13 @@
 package com.bookstore.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Author {
     private int id;
     private String name;
     private String biography;
+    // Bumped by the data layer on every change; not part of the JSON representation
+    private long version;
 
     // Default constructor
     public Author() {
@@ -41,6 +45,16 @@ public class Author {
         this.biography = biography;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // toString for debugging
     @Override
     public String toString() {
@@ -0,0 +1,42 @@
+package com.bookstore.api.model;
+
+public class BatchError {
+    private int line;
+    private String message;
+
+    // Default constructor
+    public BatchError() {
+    }
+
+    // Constructor with all fields
+    public BatchError(int line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    // Getters and setters
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "BatchError{" +
+                "line=" + line +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
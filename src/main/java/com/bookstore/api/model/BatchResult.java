@@ -0,0 +1,80 @@
+package com.bookstore.api.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchResult {
+    // At most this many errors are listed; the rest are only counted
+    public static final int MAX_ERRORS = 100;
+
+    private int created;
+    private int updated;
+    private int failed;
+    private List<BatchError> errors = new ArrayList<>();
+
+    // Default constructor
+    public BatchResult() {
+    }
+
+    // Counts a created record
+    public void recordCreated() {
+        created++;
+    }
+
+    // Counts an updated record
+    public void recordUpdated() {
+        updated++;
+    }
+
+    // Counts a failed record, listing it while fewer than MAX_ERRORS are listed
+    public void recordFailed(int line, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new BatchError(line, message));
+        }
+    }
+
+    // Getters and setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BatchError> errors) {
+        this.errors = errors;
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "created=" + created +
+                ", updated=" + updated +
+                ", failed=" + failed +
+                ", errors=" + errors +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.bookstore.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Book {
     private int id;
     private String title;
@@ -7,7 +9,9 @@ public class Book {
     private String isbn;
     private int publicationYear;
     private double price;
-    private int stock;
+    private volatile int stock;
+    // Bumped by the data layer on every change; not part of the JSON representation
+    private long version;
 
     // Default constructor
     public Book() {
@@ -81,6 +85,16 @@ public class Book {
         this.stock = stock;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // toString for debugging
     @Override
     public String toString() {
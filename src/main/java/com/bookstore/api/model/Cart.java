@@ -1,22 +1,50 @@
 package com.bookstore.api.model;
 
-import java.util.ArrayList;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.AbstractList;
 import java.util.List;
 
 public class Cart {
     private int customerId;
-    private List<CartItem> items;
+    // Quantities keyed by book id
+    private final CartLines lines = new CartLines();
+    // Read-only view of the lines, materializing a CartItem per line as it is read
+    private final List<CartItem> items = new AbstractList<>() {
+        @Override
+        public CartItem get(int position) {
+            return new CartItem(lines.bookIdAt(position), lines.quantityAt(position));
+        }
+
+        @Override
+        public int size() {
+            return lines.size();
+        }
+    };
+    // When the cart was last changed, in epoch milliseconds; drives abandoned-cart expiry
+    private volatile long lastTouched;
 
     // Default constructor
     public Cart() {
-        this.items = new ArrayList<>();
+    }
+
+    // Constructor for an empty cart
+    public Cart(int customerId) {
+        this.customerId = customerId;
     }
 
     // Constructor with all fields
     public Cart(int customerId, List<CartItem> items) {
         this.customerId = customerId;
-        // Defensive copy to prevent external modification
-        this.items = items != null ? new ArrayList<>(items) : new ArrayList<>();
+        setItems(items);
+    }
+
+    // Returns a copy of the cart, lines and last-touched time included, that can be changed independently
+    public Cart copy() {
+        Cart copy = new Cart(customerId);
+        copy.lines.copyFrom(lines);
+        copy.lastTouched = lastTouched;
+        return copy;
     }
 
     // Getters and setters
@@ -28,24 +56,57 @@ public class Cart {
         this.customerId = customerId;
     }
 
+    // Returns a read-only view of the lines; it reflects later changes to the cart
     public List<CartItem> getItems() {
-        // Return a defensive copy to prevent external modification
-        return new ArrayList<>(items);
+        return items;
     }
 
+    // Replaces all lines; a book listed more than once keeps its last quantity
     public void setItems(List<CartItem> items) {
-        // Defensive copy to prevent external modification
-        this.items = items != null ? new ArrayList<>(items) : new ArrayList<>();
+        lines.clear();
+        if (items != null) {
+            for (CartItem item : items) {
+                lines.put(item.getBookId(), item.getQuantity());
+            }
+        }
+    }
+
+    // Returns the quantity of the book in the cart, or 0 if it is not in the cart
+    public int getQuantity(int bookId) {
+        return lines.get(bookId);
+    }
+
+    public boolean containsItem(int bookId) {
+        return lines.contains(bookId);
+    }
+
+    // Sets the quantity of the book, adding it to the cart if needed; returns the previous quantity or 0
+    public int setQuantity(int bookId, int quantity) {
+        return lines.put(bookId, quantity);
+    }
+
+    // Removes the book from the cart; returns its quantity, or 0 if it was not in the cart
+    public int removeItem(int bookId) {
+        return lines.remove(bookId);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return lines.size() == 0;
+    }
+
+    @JsonIgnore
+    public long getLastTouched() {
+        return lastTouched;
+    }
+
+    @JsonIgnore
+    public void setLastTouched(long lastTouched) {
+        this.lastTouched = lastTouched;
     }
 
     public void addOrUpdateItem(CartItem item) {
-        for (CartItem existing : items) {
-            if (existing.getBookId() == item.getBookId()) {
-                existing.setQuantity(item.getQuantity());
-                return;
-            }
-        }
-        items.add(item);
+        lines.put(item.getBookId(), item.getQuantity());
     }
 
 
@@ -57,4 +118,4 @@ public class Cart {
                 ", items=" + items +
                 '}';
     }
-}
\ No newline at end of file
+}
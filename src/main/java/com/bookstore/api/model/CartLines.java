@@ -0,0 +1,169 @@
+package com.bookstore.api.model;
+
+import java.util.Arrays;
+
+/**
+ * The lines of a cart: quantities keyed by book id, in two parallel int
+ * arrays, with an open-addressing index from book id to position.
+ * <p>
+ * Lookups, insertions and removals are O(1) and no objects are allocated per
+ * line. Lines are kept densely in insertion order, except that removing a
+ * line moves the last line into its place. The index uses linear probing
+ * and is kept at most half full; removals shift later entries back instead
+ * of leaving tombstones.
+ * <p>
+ * Not thread-safe: writers must be serialized by the caller. Concurrent
+ * readers see each line either before or after a change, but may see the
+ * lines of a cart mid-change.
+ */
+final class CartLines {
+    private static final int[] EMPTY = new int[0];
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] bookIds = EMPTY;
+    private int[] quantities = EMPTY;
+    private int size;
+    // Position + 1 of the line stored in each slot, 0 for a free slot; the length is 0 or a power of two
+    private int[] index = EMPTY;
+
+    int size() {
+        return size;
+    }
+
+    int bookIdAt(int position) {
+        int[] ids = bookIds;
+        if (position >= size || position >= ids.length) {
+            throw new IndexOutOfBoundsException("Line " + position + " of " + size);
+        }
+        return ids[position];
+    }
+
+    int quantityAt(int position) {
+        int[] values = quantities;
+        if (position >= size || position >= values.length) {
+            throw new IndexOutOfBoundsException("Line " + position + " of " + size);
+        }
+        return values[position];
+    }
+
+    // Returns the quantity of the book, or 0 if it has no line
+    int get(int bookId) {
+        int slot = find(bookId);
+        return slot < 0 ? 0 : quantities[index[slot] - 1];
+    }
+
+    boolean contains(int bookId) {
+        return find(bookId) >= 0;
+    }
+
+    // Sets the quantity of the book, adding a line if needed; returns the previous quantity or 0
+    int put(int bookId, int quantity) {
+        if ((size + 1) * 2 > index.length) {
+            rehash(Math.max(MIN_CAPACITY * 2, index.length * 2));
+        }
+        int mask = index.length - 1;
+        int slot = hash(bookId) & mask;
+        while (index[slot] != 0) {
+            int position = index[slot] - 1;
+            if (bookIds[position] == bookId) {
+                int previous = quantities[position];
+                quantities[position] = quantity;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == bookIds.length) {
+            int capacity = Math.max(MIN_CAPACITY, size * 2);
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        bookIds[size] = bookId;
+        quantities[size] = quantity;
+        index[slot] = size + 1;
+        size++;
+        return 0;
+    }
+
+    // Removes the book's line; returns its quantity, or 0 if it had none
+    int remove(int bookId) {
+        int slot = find(bookId);
+        if (slot < 0) {
+            return 0;
+        }
+        int position = index[slot] - 1;
+        int removed = quantities[position];
+        deleteSlot(slot);
+        int last = size - 1;
+        if (position != last) {
+            int movedBookId = bookIds[last];
+            bookIds[position] = movedBookId;
+            quantities[position] = quantities[last];
+            index[find(movedBookId)] = position + 1;
+        }
+        size--;
+        return removed;
+    }
+
+    // Replaces these lines with a copy of the other's; the arrays are cloned whole, with no work per line
+    void copyFrom(CartLines other) {
+        bookIds = other.bookIds.clone();
+        quantities = other.quantities.clone();
+        index = other.index.clone();
+        size = other.size;
+    }
+
+    void clear() {
+        bookIds = EMPTY;
+        quantities = EMPTY;
+        index = EMPTY;
+        size = 0;
+    }
+
+    private int find(int bookId) {
+        int[] slots = index;
+        if (slots.length == 0) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        int slot = hash(bookId) & mask;
+        while (slots[slot] != 0) {
+            if (bookIds[slots[slot] - 1] == bookId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Frees a slot, shifting back later entries of the probe run that would otherwise become unreachable
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            int home = hash(bookIds[index[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int position = 0; position < size; position++) {
+            int slot = hash(bookIds[position]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = position + 1;
+        }
+        index = slots;
+    }
+
+    private static int hash(int bookId) {
+        int h = bookId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookstore.api.model;
+
+public class CartOperation {
+    public static final String ADD = "add";
+    public static final String UPDATE = "update";
+    public static final String REMOVE = "remove";
+
+    // One of add, update or remove
+    private String op;
+    private int bookId;
+    // Quantity to add (add) or the new quantity (update); ignored for remove
+    private int quantity;
+
+    // Default constructor
+    public CartOperation() {
+    }
+
+    // Constructor with all fields
+    public CartOperation(String op, int bookId, int quantity) {
+        this.op = op;
+        this.bookId = bookId;
+        this.quantity = quantity;
+    }
+
+    // Getters and setters
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(int bookId) {
+        this.bookId = bookId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "CartOperation{" +
+                "op='" + op + '\'' +
+                ", bookId=" + bookId +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
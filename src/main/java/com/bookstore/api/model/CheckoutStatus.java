@@ -0,0 +1,72 @@
+package com.bookstore.api.model;
+
+public class CheckoutStatus {
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    // The order was placed but could not be made durable, so it may be lost on restart
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private int orderId;
+    private int customerId;
+    // One of PENDING, COMPLETED, FAILED or UNKNOWN
+    private String status;
+    // Why the checkout failed or its outcome is unknown; null otherwise
+    private String message;
+
+    // Default constructor
+    public CheckoutStatus() {
+    }
+
+    // Constructor with all fields
+    public CheckoutStatus(int orderId, int customerId, String status, String message) {
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.status = status;
+        this.message = message;
+    }
+
+    // Getters and setters
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // toString for debugging
+    @Override
+    public String toString() {
+        return "CheckoutStatus{" +
+                "orderId=" + orderId +
+                ", customerId=" + customerId +
+                ", status='" + status + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
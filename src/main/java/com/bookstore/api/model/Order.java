@@ -1,13 +1,25 @@
 package com.bookstore.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 
 public class Order {
+    private static final int[] NO_LINES = new int[0];
+    // Book id, quantity and unit price in cents of each line
+    private static final int LINE_WIDTH = 3;
 
     private int id;
     private int customerId;
-    private Map<Integer, Integer> items;
+    // Order lines packed LINE_WIDTH ints apiece, sized exactly; orders are kept for good, so no slack
+    private int[] lines = NO_LINES;
 
     public Order() {
     }
@@ -15,7 +27,7 @@ public class Order {
     public Order(int id, int customerId, Map<Integer, Integer> items) {
         this.id = id;
         this.customerId = customerId;
-        this.items = items;
+        setItems(items);
     }
 
     /**
@@ -47,19 +59,138 @@ public class Order {
     }
 
     /**
-     * @return the items
+     * @return a read-only book id to quantity view of the order lines
      */
     public Map<Integer, Integer> getItems() {
-        return items;
+        return new ItemsView();
     }
 
     /**
-     * @param items the items to set
+     * Replaces the order lines; their unit prices are recorded as unknown (0).
+     *
+     * @param items the book id to quantity map to set
      */
     public void setItems(Map<Integer, Integer> items) {
-        this.items = items;
+        lines = NO_LINES;
+        if (items != null) {
+            int[] packed = new int[items.size() * LINE_WIDTH];
+            int offset = 0;
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                packed[offset] = item.getKey();
+                packed[offset + 1] = item.getValue();
+                offset += LINE_WIDTH;
+            }
+            lines = packed;
+        }
     }
 
+    /**
+     * Adds a line to the order, or adds the quantity to the book's existing line.
+     *
+     * @param bookId         the ID of the book
+     * @param quantity       the quantity ordered
+     * @param unitPriceCents the price of one copy when the order was placed, in cents
+     */
+    public void addItem(int bookId, int quantity, int unitPriceCents) {
+        int offset = offsetOf(bookId);
+        if (offset >= 0) {
+            lines[offset + 1] += quantity;
+            return;
+        }
+        int[] packed = Arrays.copyOf(lines, lines.length + LINE_WIDTH);
+        packed[lines.length] = bookId;
+        packed[lines.length + 1] = quantity;
+        packed[lines.length + 2] = unitPriceCents;
+        lines = packed;
+    }
+
+    /**
+     * @return the number of order lines
+     */
+    @JsonIgnore
+    public int getLineCount() {
+        return lines.length / LINE_WIDTH;
+    }
 
+    /**
+     * @param line the index of the line
+     * @return the book ID of the line
+     */
+    public int getBookId(int line) {
+        return lines[line * LINE_WIDTH];
+    }
 
+    /**
+     * @param line the index of the line
+     * @return the quantity of the line
+     */
+    public int getQuantity(int line) {
+        return lines[line * LINE_WIDTH + 1];
+    }
+
+    /**
+     * @param line the index of the line
+     * @return the unit price of the line when the order was placed, in cents (0 if unknown)
+     */
+    public int getUnitPriceCents(int line) {
+        return lines[line * LINE_WIDTH + 2];
+    }
+
+    // Offset of the book's line in the packed array, or -1
+    private int offsetOf(int bookId) {
+        int[] packed = lines;
+        for (int offset = 0; offset < packed.length; offset += LINE_WIDTH) {
+            if (packed[offset] == bookId) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    // Book id -> quantity view of the lines, in line order; created on demand so orders carry no extra object
+    private final class ItemsView extends AbstractMap<Integer, Integer> {
+        @Override
+        public Set<Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, Integer>> iterator() {
+                    int[] packed = lines;
+                    return new Iterator<>() {
+                        private int offset;
+
+                        @Override
+                        public boolean hasNext() {
+                            return offset < packed.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<Integer, Integer> line = new SimpleImmutableEntry<>(packed[offset], packed[offset + 1]);
+                            offset += LINE_WIDTH;
+                            return line;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return getLineCount();
+                }
+            };
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int offset = key instanceof Integer ? offsetOf((Integer) key) : -1;
+            return offset >= 0 ? lines[offset + 1] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && offsetOf((Integer) key) >= 0;
+        }
+    }
 }
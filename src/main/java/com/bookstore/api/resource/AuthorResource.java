@@ -10,10 +10,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Path("/authors")
 @Produces(MediaType.APPLICATION_JSON)
@@ -30,57 +33,74 @@ public class AuthorResource {
 
     @POST
     public Response createAuthor(Author author) {
-        LOGGER.info("Creating author: {}", author);
+        Logger log = RequestLog.sample(LOGGER, "AuthorResource.createAuthor");
+        log.info("Creating author");
         // Validation
         if (author.getName() == null || author.getName().isEmpty()) {
             throw new InvalidInputException("Invalid author data: name is required.");
         }
         Author createdAuthor = AuthorData.addAuthor(author);
-        LOGGER.info("Created author with ID: {}", createdAuthor.getId());
+        log.info("Created author with ID: {}", createdAuthor.getId());
         return Response.status(Response.Status.CREATED).entity(createdAuthor).build();
     }
 
     /**
-     * Retrieves all authors.
+     * Retrieves all authors, or one page of them when limit or cursor is given.
      *
+     * @param limit  the maximum number of authors to return
+     * @param cursor the cursor returned in X-Next-Cursor by the previous page
      * @return a list of authors
      */
 
     @GET
-    public Response getAllAuthors() {
-        LOGGER.info("Retrieving all authors");
-        List<Author> authors = AuthorData.getAllAuthors();
-        return Response.ok(authors).build();
+    public Response getAllAuthors(@QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor) {
+        Logger log = RequestLog.sample(LOGGER, "AuthorResource.getAllAuthors");
+        log.info("Retrieving all authors");
+        if (Pagination.isRequested(limit, cursor)) {
+            return Pagination.ok(AuthorData.getAuthorsPage(Pagination.afterId(cursor), Pagination.limit(limit)));
+        }
+        return StreamingJson.ok(AuthorData.viewAllAuthors());
     }
 
     /**
-     * Retrieves an author by ID.
+     * Retrieves an author by ID. The response carries an ETag; when
+     * If-None-Match already names it, 304 Not Modified is returned without a body.
      *
-     * @param id the ID of the author
+     * @param id      the ID of the author
+     * @param request the request, for evaluating conditional headers
      * @return the author with the specified ID
      */
     @GET
     @Path("/{id}")
-    public Response getAuthorById(@PathParam("id") int id) {
-        LOGGER.info("Retrieving author with ID: {}", id);
+    public Response getAuthorById(@PathParam("id") int id, @Context Request request) {
+        Logger log = RequestLog.sample(LOGGER, "AuthorResource.getAuthorById");
+        log.info("Retrieving author with ID: {}", id);
         Author author = AuthorData.findAuthorById(id);
         if (author == null) {
             throw new AuthorNotFoundException("Author with ID " + id + " does not exist.");
         }
-        return Response.ok(author).build();
+        EntityTag tag = EntityTags.of(author.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).build();
+        }
+        return Response.ok(author).tag(tag).build();
     }
 
     /**
-     * Updates an existing author.
+     * Updates an existing author. With an If-Match header, the update is only
+     * applied if the author still has that ETag, otherwise 412 is returned.
      *
-     * @param id     the ID of the author to update
-     * @param author the updated author data
+     * @param id      the ID of the author to update
+     * @param ifMatch the ETag the client last saw, if any
+     * @param author  the updated author data
      * @return the updated author
      */
     @PUT
     @Path("/{id}")
-    public Response updateAuthor(@PathParam("id") int id, Author author) {
-        LOGGER.info("Updating author with ID: {}", id);
+    public Response updateAuthor(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Author author) {
+        Logger log = RequestLog.sample(LOGGER, "AuthorResource.updateAuthor");
+        log.info("Updating author with ID: {}", id);
         Author existingAuthor = AuthorData.findAuthorById(id);
         if (existingAuthor == null) {
             throw new AuthorNotFoundException("Author with ID " + id + " does not exist.");
@@ -90,9 +110,9 @@ public class AuthorResource {
             throw new InvalidInputException("Invalid author data: name is required.");
         }
         author.setId(id);
-        Author updatedAuthor = AuthorData.updateAuthor(author);
-        LOGGER.info("Updated author with ID: {}", id);
-        return Response.ok(updatedAuthor).build();
+        Author updatedAuthor = AuthorData.updateAuthor(author, EntityTags.expectedVersion(ifMatch));
+        log.info("Updated author with ID: {}", id);
+        return Response.ok(updatedAuthor).tag(EntityTags.of(updatedAuthor.getVersion())).build();
     }
 
     /**
@@ -105,7 +125,8 @@ public class AuthorResource {
     @DELETE
     @Path("/{id}")
     public Response deleteAuthor(@PathParam("id") int id) {
-        LOGGER.info("Deleting author with ID: {}", id);
+        Logger log = RequestLog.sample(LOGGER, "AuthorResource.deleteAuthor");
+        log.info("Deleting author with ID: {}", id);
         Author author = AuthorData.findAuthorById(id);
         if (author == null) {
             throw new AuthorNotFoundException("Author with ID " + id + " does not exist.");
@@ -125,14 +146,13 @@ public class AuthorResource {
     @GET
     @Path("/{id}/books")
     public Response getBooksByAuthor(@PathParam("id") int id) {
-        LOGGER.info("Retrieving books for author with ID: {}", id);
+        Logger log = RequestLog.sample(LOGGER, "AuthorResource.getBooksByAuthor");
+        log.info("Retrieving books by author with ID: {}", id);
         Author author = AuthorData.findAuthorById(id);
         if (author == null) {
             throw new AuthorNotFoundException("Author with ID " + id + " does not exist.");
         }
-        List<Book> books = BookData.getAllBooks().stream()
-                .filter(book -> book.getAuthorId() == id)
-                .collect(Collectors.toList());
+        List<Book> books = BookData.findBooksByAuthorId(id);
         return Response.ok(books).build();
     }
 }
\ No newline at end of file
@@ -1,23 +1,45 @@
 package com.bookstore.api.resource;
 
+import com.bookstore.api.config.ObjectMapperProvider;
 import com.bookstore.api.data.AuthorData;
 import com.bookstore.api.data.BookData;
+import com.bookstore.api.data.BookFilter;
+import com.bookstore.api.data.BookSort;
 import com.bookstore.api.exception.BookNotFoundException;
 import com.bookstore.api.exception.InvalidInputException;
+import com.bookstore.api.model.BatchResult;
 import com.bookstore.api.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
 
 @Path("/books")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class BookResource {
     private static final Logger LOGGER = LoggerFactory.getLogger(BookResource.class);
+    static final String NDJSON = "application/x-ndjson";
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final ObjectReader BOOK_READER = ObjectMapperProvider.mapper().readerFor(Book.class);
 
     /**
      * Creates a new book.
@@ -27,105 +49,224 @@ public class BookResource {
      */
     @POST
     public Response createBook(Book book) {
-        LOGGER.info("Creating book: {}", book);
-        // Basic validation
-        if (book.getTitle() == null || book.getTitle().isEmpty() ||
-                book.getIsbn() == null || book.getIsbn().isEmpty() ||
-                book.getPublicationYear() <= 0 ||
-                book.getPrice() <= 0 ||
-                book.getStock() < 0) {
-            throw new InvalidInputException("Invalid book data: title, isbn, publicationYear, price, and stock are required.");
-        }
-        // Validate authorId
-        if (AuthorData.findAuthorById(book.getAuthorId()) == null) {
-            throw new InvalidInputException("Invalid book data: author with ID " + book.getAuthorId() + " does not exist.");
-        }
-        int currentYear = java.time.Year.now().getValue();
-        if (book.getPublicationYear() > currentYear) {
-            throw new InvalidInputException("Invalid book data: publication year cannot be in the future.");
-        }
+        Logger log = RequestLog.sample(LOGGER, "BookResource.createBook");
+        log.info("Creating book");
+        validateBook(book, authorId -> AuthorData.findAuthorById(authorId) != null);
+        Book createdBook = BookData.addBook(book);
+        log.info("Created book with ID: {}", createdBook.getId());
+        return Response.status(Response.Status.CREATED).entity(createdBook).build();
+    }
 
-        // Validate price
-        if (book.getPrice() <= 0) {
-            throw new InvalidInputException("Invalid book data: price must be greater than zero.");
+    /**
+     * Creates or updates books in bulk from newline-delimited JSON, one book
+     * per line. A book whose ISBN is already in the catalog updates that
+     * book; any other book is created. The body is read line by line and
+     * applied in chunks, so it is never held in memory as a whole, and a bad
+     * line fails only itself.
+     *
+     * @param body the NDJSON stream of books
+     * @return counts of created, updated and failed lines, with the first errors and their line numbers
+     * @throws IOException if the request body cannot be read
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({NDJSON, MediaType.TEXT_PLAIN})
+    public Response importBooks(InputStream body) throws IOException {
+        Logger log = RequestLog.sample(LOGGER, "BookResource.importBooks");
+        log.info("Importing books");
+        BatchResult result = new BatchResult();
+        // Authors are looked up once per batch rather than once per line
+        Map<Integer, Boolean> authorExists = new HashMap<>();
+        IntPredicate authorCheck = authorId -> authorExists.computeIfAbsent(authorId, key -> AuthorData.findAuthorById(key) != null);
+        List<Book> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Integer> chunkLines = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Book book = BOOK_READER.readValue(line);
+                validateBook(book, authorCheck);
+                chunk.add(book);
+                chunkLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                result.recordFailed(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+            } catch (InvalidInputException e) {
+                result.recordFailed(lineNumber, e.getMessage());
+            }
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                applyChunk(chunk, chunkLines, result);
+            }
         }
+        applyChunk(chunk, chunkLines, result);
+        log.info("Imported books: {} created, {} updated, {} failed", result.getCreated(), result.getUpdated(), result.getFailed());
+        return Response.ok(result).build();
+    }
 
-        // Validate stock
-        if (book.getStock() <= 0) {
-            throw new InvalidInputException("Invalid book data: stock must be greater than zero.");
-        }
+    /**
+     * Retrieves all books, or one page of them when limit or cursor is given.
+     * With a price or year bound, or a sort order, only the books within the
+     * bounds are returned, one page at a time, sorted by price or year.
+     *
+     * @param limit    the maximum number of books to return
+     * @param cursor   the cursor returned in X-Next-Cursor by the previous page
+     * @param minPrice the lowest price to include
+     * @param maxPrice the highest price to include
+     * @param fromYear the earliest publication year to include
+     * @param toYear   the latest publication year to include
+     * @param sort     price, -price, year or -year; defaults to price when a price bound is given, else year
+     * @return a list of books
+     */
 
-        Book createdBook = BookData.addBook(book);
-        LOGGER.info("Created book with ID: {}", createdBook.getId());
-        return Response.status(Response.Status.CREATED).entity(createdBook).build();
+    @GET
+    public Response getAllBooks(@QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor,
+                                @QueryParam("minPrice") Double minPrice, @QueryParam("maxPrice") Double maxPrice,
+                                @QueryParam("fromYear") Integer fromYear, @QueryParam("toYear") Integer toYear,
+                                @QueryParam("sort") String sort) {
+        Logger log = RequestLog.sample(LOGGER, "BookResource.getAllBooks");
+        log.info("Retrieving all books");
+        BookFilter filter = new BookFilter(minPrice, maxPrice, fromYear, toYear);
+        if (!filter.isEmpty() || sort != null) {
+            BookSort order = sort != null ? BookSort.fromParameter(sort)
+                    : filter.hasPriceBound() ? BookSort.PRICE_ASC : BookSort.YEAR_ASC;
+            if (order == null) {
+                throw new InvalidInputException("Invalid sort: must be one of price, -price, year or -year.");
+            }
+            return Pagination.ok(BookData.getBooksPage(filter, order, Pagination.afterKey(cursor), Pagination.limit(limit)));
+        }
+        if (Pagination.isRequested(limit, cursor)) {
+            return Pagination.ok(BookData.getBooksPage(Pagination.afterId(cursor), Pagination.limit(limit)));
+        }
+        return StreamingJson.ok(BookData.viewAllBooks());
     }
 
     /**
-     * Retrieves all books.
+     * Searches book titles and author names. Every word of the query must
+     * appear in the title or the author's name; matches in the title rank
+     * higher. Results are paged like the collection, with an opaque cursor.
      *
-     * @return a list of books
+     * @param query  the words to search for
+     * @param limit  the maximum number of books to return
+     * @param cursor the cursor returned in X-Next-Cursor by the previous page
+     * @return the matching books, best match first
      */
 
     @GET
-    public Response getAllBooks() {
-        LOGGER.info("Retrieving all books");
-        List<Book> books = BookData.getAllBooks();
-        return Response.ok(books).build();
+    @Path("/search")
+    public Response searchBooks(@QueryParam("q") String query, @QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor) {
+        Logger log = RequestLog.sample(LOGGER, "BookResource.searchBooks");
+        log.info("Searching books for: {}", query);
+        if (query == null || query.isBlank()) {
+            throw new InvalidInputException("Invalid search: the q parameter is required.");
+        }
+        return Pagination.ok(BookData.searchBooks(query, Pagination.offset(cursor), Pagination.limit(limit)));
     }
 
     /**
-     * Retrieves a book by ID.
+     * Retrieves a book by ID. The response carries an ETag; when If-None-Match
+     * already names it, 304 Not Modified is returned without a body.
      *
-     * @param id the ID of the book
+     * @param id      the ID of the book
+     * @param request the request, for evaluating conditional headers
      * @return the book with the specified ID
      */
 
     @GET
     @Path("/{id}")
-    public Response getBookById(@PathParam("id") int id) {
-        LOGGER.info("Retrieving book with ID: {}", id);
-        Book book = BookData.findBookById(id);
+    public Response getBookById(@PathParam("id") int id, @Context Request request) {
+        Logger log = RequestLog.sample(LOGGER, "BookResource.getBookById");
+        log.info("Retrieving book with ID: {}", id);
+        Book book = BookData.findVersionedBookById(id);
         if (book == null) {
             throw new BookNotFoundException("Book with ID " + id + " does not exist.");
         }
+        EntityTag tag = EntityTags.of(book.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).build();
+        }
+        return Response.ok(book).tag(tag).build();
+    }
+
+    /**
+     * Retrieves a book by ISBN. ISBN-10 and ISBN-13 forms of the same book,
+     * with or without hyphens, find the same book.
+     *
+     * @param isbn the ISBN of the book
+     * @return the book with the specified ISBN
+     */
+
+    @GET
+    @Path("/isbn/{isbn}")
+    public Response getBookByIsbn(@PathParam("isbn") String isbn) {
+        Logger log = RequestLog.sample(LOGGER, "BookResource.getBookByIsbn");
+        log.info("Retrieving book with ISBN: {}", isbn);
+        Book book = BookData.findBookByIsbn(isbn);
+        if (book == null) {
+            throw new BookNotFoundException("Book with ISBN " + isbn + " does not exist.");
+        }
         return Response.ok(book).build();
     }
 
     /**
-     * Updates an existing book.
+     * Updates an existing book. With an If-Match header, the update is only
+     * applied if the book still has that ETag, otherwise 412 is returned.
      *
-     * @param id   the ID of the book to update
-     * @param book the updated book data
+     * @param id      the ID of the book to update
+     * @param ifMatch the ETag the client last saw, if any
+     * @param book    the updated book data
      * @return the updated book
      */
 
     @PUT
     @Path("/{id}")
-    public Response updateBook(@PathParam("id") int id, Book book) {
-        LOGGER.info("Updating book with ID: {}", id);
+    public Response updateBook(@PathParam("id") int id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, Book book) {
+        Logger log = RequestLog.sample(LOGGER, "BookResource.updateBook");
+        log.info("Updating book with ID: {}", id);
         Book existingBook = BookData.findBookById(id);
         if (existingBook == null) {
             throw new BookNotFoundException("Book with ID " + id + " does not exist.");
         }
-
-        int currentYear = java.time.Year.now().getValue();
-        if (book.getPublicationYear() > currentYear) {
-            throw new InvalidInputException("Invalid book data: publication year cannot be in the future.");
-        }
-
-        // Validate price
-        if (book.getPrice() <= 0) {
-            throw new InvalidInputException("Invalid book data: price must be greater than zero.");
+        validateBook(book, authorId -> AuthorData.findAuthorById(authorId) != null);
+        // Update fields
+        book.setId(id);
+        BookData.updateBook(book, EntityTags.expectedVersion(ifMatch));
+        log.info("Updated book with ID: {}", id);
+        Book updatedBook = BookData.findVersionedBookById(id);
+        if (updatedBook == null) {
+            // Deleted concurrently, right after the update
+            return Response.ok(book).build();
         }
+        return Response.ok(updatedBook).tag(EntityTags.of(updatedBook.getVersion())).build();
+    }
 
-        // Validate stock
-        if (book.getStock() <= 0) {
-            throw new InvalidInputException("Invalid book data: stock must be greater than zero.");
-        }
+    // Writes a chunk of validated books, waiting for durability once for the whole chunk, then clears it
+    private static void applyChunk(List<Book> chunk, List<Integer> lines, BatchResult result) {
+        BookData.runBatch(() -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    if (BookData.upsertBookByIsbn(chunk.get(i))) {
+                        result.recordCreated();
+                    } else {
+                        result.recordUpdated();
+                    }
+                } catch (InvalidInputException e) {
+                    result.recordFailed(lines.get(i), e.getMessage());
+                }
+            }
+        });
+        chunk.clear();
+        lines.clear();
+    }
 
-        // Update fields
-        book.setId(id);
-        if (book.getTitle() == null || book.getTitle().isEmpty() ||
+    // Checks the fields of a book submitted for creation or update
+    private static void validateBook(Book book, IntPredicate authorExists) {
+        // Basic validation; a JSON null body or NDJSON line reads as no book
+        if (book == null || book.getTitle() == null || book.getTitle().isEmpty() ||
                 book.getIsbn() == null || book.getIsbn().isEmpty() ||
                 book.getPublicationYear() <= 0 ||
                 book.getPrice() <= 0 ||
@@ -133,12 +274,18 @@ public class BookResource {
             throw new InvalidInputException("Invalid book data: title, isbn, publicationYear, price, and stock are required.");
         }
         // Validate authorId
-        if (AuthorData.findAuthorById(book.getAuthorId()) == null) {
+        if (!authorExists.test(book.getAuthorId())) {
             throw new InvalidInputException("Invalid book data: author with ID " + book.getAuthorId() + " does not exist.");
         }
-        Book updatedBook = BookData.updateBook(book);
-        LOGGER.info("Updated book with ID: {}", id);
-        return Response.ok(updatedBook).build();
+        int currentYear = java.time.Year.now().getValue();
+        if (book.getPublicationYear() > currentYear) {
+            throw new InvalidInputException("Invalid book data: publication year cannot be in the future.");
+        }
+
+        // Validate stock
+        if (book.getStock() <= 0) {
+            throw new InvalidInputException("Invalid book data: stock must be greater than zero.");
+        }
     }
 
     /**
@@ -151,7 +298,8 @@ public class BookResource {
     @DELETE
     @Path("/{id}")
     public Response deleteBook(@PathParam("id") int id) {
-        LOGGER.info("Deleting book with ID: {}", id);
+        Logger log = RequestLog.sample(LOGGER, "BookResource.deleteBook");
+        log.info("Deleting book with ID: {}", id);
         Book book = BookData.findBookById(id);
         if (book == null) {
             throw new BookNotFoundException("Book with ID " + id + " does not exist.");
@@ -3,20 +3,19 @@ package com.bookstore.api.resource;
 import com.bookstore.api.data.BookData;
 import com.bookstore.api.data.CartData;
 import com.bookstore.api.data.CustomerData;
-import com.bookstore.api.exception.CartNotFoundException;
 import com.bookstore.api.exception.CustomerNotFoundException;
 import com.bookstore.api.exception.InvalidInputException;
 import com.bookstore.api.model.Book;
 import com.bookstore.api.model.Cart;
 import com.bookstore.api.model.CartItem;
+import com.bookstore.api.model.CartOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.ArrayList;
-import java.util.Optional;
+import java.util.List;
 
 @Path("/customers/{customerId}/cart")
 @Produces(MediaType.APPLICATION_JSON)
@@ -35,7 +34,8 @@ public class CartResource {
     @POST
     @Path("/items")
     public Response addItemToCart(@PathParam("customerId") int customerId, CartItem item) {
-        LOGGER.info("Adding item to cart for customer ID: {}, item: {}", customerId, item);
+        Logger log = RequestLog.sample(LOGGER, "CartResource.addItemToCart");
+        log.info("Adding item to cart for customer ID: {}, book ID: {}, quantity: {}", customerId, item.getBookId(), item.getQuantity());
         // Validate customer
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
@@ -48,36 +48,39 @@ public class CartResource {
         if (book == null) {
             throw new InvalidInputException("Invalid cart item: book with ID " + item.getBookId() + " does not exist.");
         }
-        // Get or create cart
-        Cart cart = CartData.findCartByCustomerId(customerId);
-        if (cart == null) {
-            cart = new Cart(customerId, new ArrayList<>());
+        // Reserve the added quantity and add it to the cart (created if needed) in one step
+        Cart updatedCart = CartData.addItem(customerId, item.getBookId(), item.getQuantity());
+        log.info("Added item to cart for customer ID: {}, lines: {}", customerId, updatedCart.getItems().size());
+        return Response.status(Response.Status.CREATED).entity(updatedCart).build();
+    }
+
+    /**
+     * Applies several add/update/remove operations to the cart in one request.
+     * The operations are applied in order and as a whole: if any of them is
+     * invalid or any book lacks stock, none is applied and nothing is reserved.
+     *
+     * @param customerId the ID of the customer
+     * @param operations the operations to apply, in order
+     * @return the updated cart
+     */
+    @POST
+    @Path("/items/batch")
+    public Response applyCartOperations(@PathParam("customerId") int customerId, List<CartOperation> operations) {
+        Logger log = RequestLog.sample(LOGGER, "CartResource.applyCartOperations");
+        log.info("Applying {} operations to cart for customer ID: {}", operations != null ? operations.size() : 0, customerId);
+        // Validate customer
+        if (CustomerData.findCustomerById(customerId) == null) {
+            throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
         }
-        // Check stock for existing and new quantity
-        int existingQuantity = cart.getItems().stream()
-                .filter(i -> i.getBookId() == item.getBookId())
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-        int newQuantity = existingQuantity + item.getQuantity();
-        if (book.getStock() < newQuantity) {
-            throw new InvalidInputException("Invalid cart item: insufficient stock for book ID " + item.getBookId() + ". Available: " + book.getStock());
+        if (operations == null || operations.isEmpty()) {
+            throw new InvalidInputException("Invalid cart operations: at least one operation is required.");
         }
-        // Update stock
-        BookData.updateStock(item.getBookId(), book.getStock() - item.getQuantity());
-        // Add or update item
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(i -> i.getBookId() == item.getBookId())
-                .findFirst();
-        if (existingItem.isPresent()) {
-            existingItem.get().setQuantity(newQuantity);
-        } else {
-//            cart.getItems().add(new CartItem(item.getBookId(), item.getQuantity()));
-            cart.addOrUpdateItem(new CartItem(item.getBookId(), newQuantity));
-
+        Cart updatedCart = CartData.applyOperations(customerId, operations);
+        if (updatedCart == null) {
+            updatedCart = new Cart(customerId);
         }
-        Cart updatedCart = CartData.addCart(cart);
-        LOGGER.info("Added item to cart for customer ID: {}, updated cart: {}", customerId, updatedCart);
-        return Response.status(Response.Status.CREATED).entity(updatedCart).build();
+        log.info("Applied operations to cart for customer ID: {}, lines: {}", customerId, updatedCart.getItems().size());
+        return Response.ok(updatedCart).build();
     }
 
     /**
@@ -89,14 +92,15 @@ public class CartResource {
 
     @GET
     public Response getCart(@PathParam("customerId") int customerId) {
-        LOGGER.info("Retrieving cart for customer ID: {}", customerId);
+        Logger log = RequestLog.sample(LOGGER, "CartResource.getCart");
+        log.info("Retrieving cart for customer ID: {}", customerId);
         // Validate customer
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
         }
         Cart cart = CartData.findCartByCustomerId(customerId);
         if (cart == null) {
-            cart = new Cart(customerId, new ArrayList<>());
+            cart = new Cart(customerId);
         }
         return Response.ok(cart).build();
     }
@@ -112,7 +116,8 @@ public class CartResource {
     @PUT
     @Path("/items/{bookId}")
     public Response updateItemInCart(@PathParam("customerId") int customerId, @PathParam("bookId") int bookId, CartItem item) {
-        LOGGER.info("Updating item in cart for customer ID: {}, bookId: {}, item: {}", customerId, bookId, item);
+        Logger log = RequestLog.sample(LOGGER, "CartResource.updateItemInCart");
+        log.info("Updating item in cart for customer ID: {}, book ID: {}, quantity: {}", customerId, bookId, item.getQuantity());
         // Validate customer
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
@@ -125,32 +130,9 @@ public class CartResource {
         if (book == null) {
             throw new InvalidInputException("Invalid cart item: book with ID " + bookId + " does not exist.");
         }
-        // Get cart
-        Cart cart = CartData.findCartByCustomerId(customerId);
-        if (cart == null) {
-            throw new CartNotFoundException("Cart for customer ID " + customerId + " does not exist.");
-        }
-        // Find existing item
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(i -> i.getBookId() == bookId)
-                .findFirst();
-        if (existingItem.isEmpty()) {
-            throw new InvalidInputException("Cart item with book ID " + bookId + " does not exist in the cart.");
-        }
-        // Calculate stock difference
-        int currentQuantity = existingItem.get().getQuantity();
-        int quantityDifference = item.getQuantity() - currentQuantity;
-        if (book.getStock() < quantityDifference) {
-            throw new InvalidInputException("Invalid cart item: insufficient stock for book ID " + bookId + ". Available: " + book.getStock());
-        }
-        // Update stock
-        if (quantityDifference != 0) {
-            BookData.updateStock(bookId, book.getStock() - quantityDifference);
-        }
-        // Update item
-        existingItem.get().setQuantity(item.getQuantity());
-        Cart updatedCart = CartData.addCart(cart);
-        LOGGER.info("Updated item in cart for customer ID: {}, updated cart: {}", customerId, updatedCart);
+        // Reserve or release the quantity difference and update the item in one step
+        Cart updatedCart = CartData.updateItem(customerId, bookId, item.getQuantity());
+        log.info("Updated item in cart for customer ID: {}, lines: {}", customerId, updatedCart.getItems().size());
         return Response.ok(updatedCart).build();
     }
 
@@ -165,36 +147,15 @@ public class CartResource {
     @DELETE
     @Path("/items/{bookId}")
     public Response removeItemFromCart(@PathParam("customerId") int customerId, @PathParam("bookId") int bookId) {
-        LOGGER.info("Removing item from cart for customer ID: {}, bookId: {}", customerId, bookId);
+        Logger log = RequestLog.sample(LOGGER, "CartResource.removeItemFromCart");
+        log.info("Removing item from cart for customer ID: {}, book ID: {}", customerId, bookId);
         // Validate customer
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
         }
-        // Get cart
-        Cart cart = CartData.findCartByCustomerId(customerId);
-        if (cart == null) {
-            throw new CartNotFoundException("Cart for customer ID " + customerId + " does not exist.");
-        }
-        // Find item
-        Optional<CartItem> itemToRemove = cart.getItems().stream()
-                .filter(i -> i.getBookId() == bookId)
-                .findFirst();
-        if (itemToRemove.isEmpty()) {
-            throw new InvalidInputException("Cart item with book ID " + bookId + " does not exist in the cart.");
-        }
-        // Update stock
-        Book book = BookData.findBookById(bookId);
-        if (book != null) {
-            BookData.updateStock(bookId, book.getStock() + itemToRemove.get().getQuantity());
-        }
-        // Remove item
-        cart.getItems().removeIf(i -> i.getBookId() == bookId);
-        if (cart.getItems().isEmpty()) {
-            CartData.deleteCart(customerId);
-        } else {
-            CartData.addCart(cart);
-        }
-        LOGGER.info("Removed item from cart for customer ID: {}, bookId: {}", customerId, bookId);
+        // Remove the item and return its quantity to stock in one step; an emptied cart is deleted
+        CartData.removeItem(customerId, bookId);
+        log.info("Removed item from cart for customer ID: {}, book ID: {}", customerId, bookId);
         return Response.status(Response.Status.NO_CONTENT).build();
     }
 }
\ No newline at end of file
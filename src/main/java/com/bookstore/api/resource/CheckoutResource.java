@@ -0,0 +1,27 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.data.CheckoutPipeline;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+@Path("/checkout")
+@Produces(MediaType.APPLICATION_JSON)
+public class CheckoutResource {
+
+    /**
+     * Retrieves the state of the asynchronous checkout pipeline: queue depth,
+     * submitted, completed and failed counts, batch sizes, and percentiles of
+     * the time from queueing a checkout until its order is durable.
+     *
+     * @return the checkout pipeline statistics
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(CheckoutPipeline.getStats()).build();
+    }
+}
@@ -10,7 +10,6 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.List;
 
 @Path("/customers")
 @Produces(MediaType.APPLICATION_JSON)
@@ -27,33 +26,36 @@ public class CustomerResource {
      */
     @POST
     public Response createCustomer(Customer customer) {
-        LOGGER.info("Creating customer: {}", customer);
+        Logger log = RequestLog.sample(LOGGER, "CustomerResource.createCustomer");
+        log.info("Creating customer");
         // Validation
         if (customer.getName() == null || customer.getName().isEmpty() ||
                 customer.getEmail() == null || !isValidEmail(customer.getEmail()) ||
                 customer.getPassword() == null || customer.getPassword().isEmpty()) {
             throw new InvalidInputException("Invalid customer data: name, valid email, and password are required.");
         }
-        // Check for unique email
-        if (CustomerData.findCustomerByEmail(customer.getEmail()) != null) {
-            throw new InvalidInputException("A customer with email " + customer.getEmail() + " already exists.");
-        }
+        // Email uniqueness is enforced atomically by CustomerData
         Customer createdCustomer = CustomerData.addCustomer(customer);
-        LOGGER.info("Created customer with ID: {}", createdCustomer.getId());
+        log.info("Created customer with ID: {}", createdCustomer.getId());
         return Response.status(Response.Status.CREATED).entity(createdCustomer).build();
     }
 
     /**
-     * Retrieves all customers.
+     * Retrieves all customers, or one page of them when limit or cursor is given.
      *
+     * @param limit  the maximum number of customers to return
+     * @param cursor the cursor returned in X-Next-Cursor by the previous page
      * @return a list of customers
      */
 
     @GET
-    public Response getAllCustomers() {
-        LOGGER.info("Retrieving all customers");
-        List<Customer> customers = CustomerData.getAllCustomers();
-        return Response.ok(customers).build();
+    public Response getAllCustomers(@QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor) {
+        Logger log = RequestLog.sample(LOGGER, "CustomerResource.getAllCustomers");
+        log.info("Retrieving all customers");
+        if (Pagination.isRequested(limit, cursor)) {
+            return Pagination.ok(CustomerData.getCustomersPage(Pagination.afterId(cursor), Pagination.limit(limit)));
+        }
+        return StreamingJson.ok(CustomerData.viewAllCustomers());
     }
 
     /**
@@ -65,7 +67,8 @@ public class CustomerResource {
     @GET
     @Path("/{id}")
     public Response getCustomerById(@PathParam("id") int id) {
-        LOGGER.info("Retrieving customer with ID: {}", id);
+        Logger log = RequestLog.sample(LOGGER, "CustomerResource.getCustomerById");
+        log.info("Retrieving customer with ID: {}", id);
         Customer customer = CustomerData.findCustomerById(id);
         if (customer == null) {
             throw new CustomerNotFoundException("Customer with ID " + id + " does not exist.");
@@ -83,7 +86,8 @@ public class CustomerResource {
     @PUT
     @Path("/{id}")
     public Response updateCustomer(@PathParam("id") int id, Customer customer) {
-        LOGGER.info("Updating customer with ID: {}", id);
+        Logger log = RequestLog.sample(LOGGER, "CustomerResource.updateCustomer");
+        log.info("Updating customer with ID: {}", id);
         Customer existingCustomer = CustomerData.findCustomerById(id);
         if (existingCustomer == null) {
             throw new CustomerNotFoundException("Customer with ID " + id + " does not exist.");
@@ -94,14 +98,10 @@ public class CustomerResource {
                 customer.getPassword() == null || customer.getPassword().isEmpty()) {
             throw new InvalidInputException("Invalid customer data: name, valid email, and password are required.");
         }
-        // Check for unique email (excluding current customer)
-        Customer customerWithEmail = CustomerData.findCustomerByEmail(customer.getEmail());
-        if (customerWithEmail != null && customerWithEmail.getId() != id) {
-            throw new InvalidInputException("A customer with email " + customer.getEmail() + " already exists.");
-        }
+        // Email uniqueness (excluding the current customer) is enforced atomically by CustomerData
         customer.setId(id);
         Customer updatedCustomer = CustomerData.updateCustomer(customer);
-        LOGGER.info("Updated customer with ID: {}", id);
+        log.info("Updated customer with ID: {}", id);
         return Response.ok(updatedCustomer).build();
     }
 
@@ -115,7 +115,8 @@ public class CustomerResource {
     @DELETE
     @Path("/{id}")
     public Response deleteCustomer(@PathParam("id") int id) {
-        LOGGER.info("Deleting customer with ID: {}", id);
+        Logger log = RequestLog.sample(LOGGER, "CustomerResource.deleteCustomer");
+        log.info("Deleting customer with ID: {}", id);
         Customer customer = CustomerData.findCustomerById(id);
         if (customer == null) {
             throw new CustomerNotFoundException("Customer with ID " + id + " does not exist.");
@@ -0,0 +1,44 @@
+package com.bookstore.api.resource;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * ETags for versioned entities. A tag is the entity's version from the data
+ * layer, prefixed with an id of this server instance: versions are kept in
+ * memory and start over after a restart, so tags issued before it must never
+ * match again.
+ */
+final class EntityTags {
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+    // Never a real version, so a foreign or malformed If-Match tag fails the check
+    private static final long NO_VERSION = -1;
+
+    private EntityTags() {
+    }
+
+    // Builds the ETag for a version
+    static EntityTag of(long version) {
+        return new EntityTag(INSTANCE + "-" + Long.toString(version, 36));
+    }
+
+    // Decodes an If-Match header into the version the client expects, or null if there is nothing to check.
+    // Only the first tag of a list is considered; weak tags never match, as If-Match uses strong comparison.
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String tag = ifMatch.split(",", 2)[0].trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + INSTANCE + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() == prefix.length() + 1) {
+            return NO_VERSION;
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1), 36);
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.exception.InvalidInputException;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+@Path("/logging/sampling")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class LoggingResource {
+
+    /**
+     * Retrieves the request logging sampling rates.
+     *
+     * @return the rate per endpoint (ClassName.methodName), with the default rate under "*"
+     */
+    @GET
+    public Response getSamplingRates() {
+        return Response.ok(RequestLog.getRates()).build();
+    }
+
+    /**
+     * Sets request logging sampling rates. Endpoints not mentioned keep their rate.
+     *
+     * @param rates the rate per endpoint, between 0 (never log) and 1 (always log); "*" sets the default
+     * @return the sampling rates now in effect
+     */
+    @PUT
+    public Response updateSamplingRates(Map<String, Double> rates) {
+        if (rates == null || rates.isEmpty()) {
+            throw new InvalidInputException("Invalid sampling rates: at least one rate is required.");
+        }
+        for (Map.Entry<String, Double> rate : rates.entrySet()) {
+            if (rate.getValue() == null) {
+                throw new InvalidInputException("Invalid sampling rate for " + rate.getKey() + ": must be between 0 and 1.");
+            }
+        }
+        rates.forEach(RequestLog::setRate);
+        return Response.ok(RequestLog.getRates()).build();
+    }
+
+    /**
+     * Makes an endpoint use the default sampling rate again.
+     *
+     * @param endpoint the endpoint, as ClassName.methodName
+     * @return the sampling rates now in effect
+     */
+    @DELETE
+    @Path("/{endpoint}")
+    public Response resetSamplingRate(@PathParam("endpoint") String endpoint) {
+        RequestLog.resetRate(endpoint);
+        return Response.ok(RequestLog.getRates()).build();
+    }
+}
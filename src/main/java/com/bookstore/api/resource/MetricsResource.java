@@ -0,0 +1,63 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.data.CartExpiry;
+import com.bookstore.api.data.CheckoutPipeline;
+import com.bookstore.api.metrics.PrometheusWriter;
+import com.bookstore.api.metrics.RequestMetrics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Path("/metrics")
+public class MetricsResource {
+
+    /**
+     * Retrieves request latency and response counts per resource method and
+     * exception mapper, plus checkout pipeline and cart expiry metrics, in the
+     * Prometheus text format.
+     *
+     * @return the metrics
+     */
+    @GET
+    @Produces(PrometheusWriter.CONTENT_TYPE)
+    public Response getMetrics() {
+        StreamingOutput body = output -> {
+            Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            PrometheusWriter writer = new PrometheusWriter(out);
+            RequestMetrics.write(writer);
+            writeCheckoutMetrics(writer);
+            writeCartMetrics(writer);
+            out.flush();
+        };
+        return Response.ok(body).build();
+    }
+
+    private static void writeCheckoutMetrics(PrometheusWriter writer) throws IOException {
+        writer.describe("bookstore_checkout_queue_depth", "gauge", "Checkouts waiting in the queue.");
+        writer.sample("bookstore_checkout_queue_depth", "", CheckoutPipeline.getQueueDepth());
+        writer.describe("bookstore_checkouts_total", "counter", "Queued checkouts by outcome.");
+        writer.sample("bookstore_checkouts_total", PrometheusWriter.label("outcome", "submitted"), CheckoutPipeline.getSubmitted());
+        writer.sample("bookstore_checkouts_total", PrometheusWriter.label("outcome", "completed"), CheckoutPipeline.getCompleted());
+        writer.sample("bookstore_checkouts_total", PrometheusWriter.label("outcome", "failed"), CheckoutPipeline.getFailed());
+        writer.sample("bookstore_checkouts_total", PrometheusWriter.label("outcome", "unknown"), CheckoutPipeline.getUnknown());
+        writer.describe("bookstore_checkout_duration_seconds", "summary", "Time from queueing a checkout until its order is durable.");
+        writer.summary("bookstore_checkout_duration_seconds", "", CheckoutPipeline.getLatency(), 1e-6);
+        writer.describe("bookstore_checkout_batch_size", "summary", "Checkouts processed per batch.");
+        writer.summary("bookstore_checkout_batch_size", "", CheckoutPipeline.getBatchSizes(), 1);
+    }
+
+    private static void writeCartMetrics(PrometheusWriter writer) throws IOException {
+        writer.describe("bookstore_expired_carts_total", "counter", "Idle carts that expired.");
+        writer.sample("bookstore_expired_carts_total", "", CartExpiry.getExpiredCarts());
+        writer.describe("bookstore_expired_cart_units_total", "counter", "Units returned to stock by expired carts.");
+        writer.sample("bookstore_expired_cart_units_total", "", CartExpiry.getReleasedUnits());
+    }
+}
@@ -1,23 +1,24 @@
 package com.bookstore.api.resource;
 
 import com.bookstore.api.data.CartData;
+import com.bookstore.api.data.CheckoutPipeline;
 import com.bookstore.api.data.CustomerData;
 import com.bookstore.api.data.OrderData;
 import com.bookstore.api.exception.CartNotFoundException;
+import com.bookstore.api.exception.CheckoutUnavailableException;
 import com.bookstore.api.exception.CustomerNotFoundException;
 import com.bookstore.api.exception.OrderNotFoundException;
 import com.bookstore.api.model.Cart;
-import com.bookstore.api.model.CartItem;
+import com.bookstore.api.model.CheckoutStatus;
 import com.bookstore.api.model.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import javax.ws.rs.core.UriInfo;
 
 @Path("/customers/{customerId}/orders")
 @Produces(MediaType.APPLICATION_JSON)
@@ -27,59 +28,96 @@ public class OrderResource {
 
 
     /**
-     * Creates a new order for a specific customer.
+     * Creates a new order for a specific customer from the contents of their cart.
+     * With async=true the checkout is queued instead and 202 is returned with its
+     * pending status; the Location header points at the status to poll.
      *
      * @param customerId the ID of the customer
-     * @return the created order
+     * @param async      whether to queue the checkout instead of completing it on this request
+     * @param uriInfo    the request URI, used to build the status location
+     * @return the created order, or the pending checkout status
      */
     @POST
-    public Response createOrder(@PathParam("customerId") int customerId) {
-        LOGGER.info("Creating order for customer ID: {}", customerId);
+    public Response createOrder(@PathParam("customerId") int customerId, @QueryParam("async") boolean async,
+                                @Context UriInfo uriInfo) {
+        Logger log = RequestLog.sample(LOGGER, "OrderResource.createOrder");
+        log.info("Creating order for customer ID: {}, async: {}", customerId, async);
 
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
         }
 
         Cart cart = CartData.findCartByCustomerId(customerId);
-        if (cart == null || cart.getItems().isEmpty()) {
+        if (cart == null || cart.isEmpty()) {
             throw new CartNotFoundException("Cart is empty or not found for customer ID " + customerId);
         }
 
-        Map<Integer, Integer> orderItems = new LinkedHashMap<>();
-        for (CartItem item : cart.getItems()) {
-            orderItems.put(item.getBookId(), item.getQuantity());
+        if (async) {
+            CheckoutStatus status = CheckoutPipeline.submit(customerId);
+            if (status == null) {
+                throw new CheckoutUnavailableException("Too many checkouts are pending; please retry shortly.");
+            }
+            log.info("Checkout queued for customer ID: {}, order ID: {}", customerId, status.getOrderId());
+            return Response.accepted(status)
+                    .location(uriInfo.getAbsolutePathBuilder().path(String.valueOf(status.getOrderId())).path("status").build())
+                    .build();
         }
 
-        Order order = new Order();
-        order.setCustomerId(customerId);
-        order.setItems(orderItems);
+        // The cart is taken atomically, so it becomes at most one order; if creating the order fails it is given back
+        Order savedOrder = CheckoutPipeline.checkout(customerId);
+        log.info("Order created for customer ID: {}, order ID: {}, lines: {}", customerId, savedOrder.getId(), savedOrder.getLineCount());
 
-        Order savedOrder = OrderData.createOrder(order);
+        return Response.status(Response.Status.CREATED).entity(savedOrder).build();
+    }
 
-        // Clear cart after successful order
-        CartData.deleteCart(customerId);
-        LOGGER.info("Order created: {}", savedOrder);
+    /**
+     * Retrieves the status of a checkout queued with async=true.
+     *
+     * @param customerId the ID of the customer
+     * @param orderId    the order ID returned when the checkout was queued
+     * @return the checkout status: PENDING, COMPLETED, FAILED, or UNKNOWN if the order was placed but could not be saved
+     */
+    @GET
+    @Path("/{orderId}/status")
+    public Response getCheckoutStatus(@PathParam("customerId") int customerId, @PathParam("orderId") int orderId) {
+        Logger log = RequestLog.sample(LOGGER, "OrderResource.getCheckoutStatus");
+        log.info("Retrieving checkout status for customer ID: {}, order ID: {}", customerId, orderId);
 
-        return Response.status(Response.Status.CREATED).entity(savedOrder).build();
+        if (CustomerData.findCustomerById(customerId) == null) {
+            throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
+        }
+
+        CheckoutStatus status = CheckoutPipeline.getStatus(customerId, orderId);
+        if (status == null) {
+            throw new OrderNotFoundException("Order with ID " + orderId + " does not exist.");
+        }
+
+        return Response.ok(status).build();
     }
 
     /**
-     * Retrieves all orders for a specific customer.
+     * Retrieves all orders for a specific customer, or one page of them when limit or cursor is given.
      *
      * @param customerId the ID of the customer
+     * @param limit      the maximum number of orders to return
+     * @param cursor     the cursor returned in X-Next-Cursor by the previous page
      * @return a list of orders for the customer
      */
 
     @GET
-    public Response getAllOrders(@PathParam("customerId") int customerId) {
-        LOGGER.info("Retrieving all orders for customer ID: {}", customerId);
+    public Response getAllOrders(@PathParam("customerId") int customerId,
+                                 @QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor) {
+        Logger log = RequestLog.sample(LOGGER, "OrderResource.getAllOrders");
+        log.info("Retrieving all orders for customer ID: {}", customerId);
 
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
         }
 
-        List<Order> orders = OrderData.findOrdersByCustomerId(customerId);
-        return Response.ok(orders).build();
+        if (Pagination.isRequested(limit, cursor)) {
+            return Pagination.ok(OrderData.findOrdersPageByCustomerId(customerId, Pagination.afterId(cursor), Pagination.limit(limit)));
+        }
+        return StreamingJson.ok(OrderData.viewOrdersByCustomerId(customerId));
     }
 
     /**
@@ -93,7 +131,8 @@ public class OrderResource {
     @GET
     @Path("/{orderId}")
     public Response getOrderById(@PathParam("customerId") int customerId, @PathParam("orderId") int orderId) {
-        LOGGER.info("Retrieving order ID: {} for customer ID: {}", orderId, customerId);
+        Logger log = RequestLog.sample(LOGGER, "OrderResource.getOrderById");
+        log.info("Retrieving order for customer ID: {}, order ID: {}", customerId, orderId);
 
         if (CustomerData.findCustomerById(customerId) == null) {
             throw new CustomerNotFoundException("Customer with ID " + customerId + " does not exist.");
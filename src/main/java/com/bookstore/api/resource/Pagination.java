@@ -0,0 +1,85 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.data.Page;
+import com.bookstore.api.exception.InvalidInputException;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Shared handling of the limit/cursor query parameters of collection endpoints.
+ * A page is returned as the usual JSON array; when more items follow, the
+ * cursor for the next page is sent in the X-Next-Cursor header.
+ */
+final class Pagination {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    // Whether the request asked for a page rather than the full collection
+    static boolean isRequested(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    // Validates the requested page size, capping it at MAX_LIMIT
+    static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit <= 0) {
+            throw new InvalidInputException("Invalid limit: must be a positive number.");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // Decodes a cursor into the id the next page starts after (null for the first page)
+    static Integer afterId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Decodes a cursor holding a composite index key (null for the first page)
+    static Long afterKey(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Decodes an offset cursor, as used by ranked results that have no natural key (0 for the first page)
+    static int offset(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset >= 0) {
+                return offset;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the error below
+        }
+        throw new InvalidInputException("Invalid cursor: " + cursor);
+    }
+
+    // Builds a 200 response carrying the page items and the next cursor, if any
+    static Response ok(Page<?> page) {
+        Response.ResponseBuilder response = Response.ok(page.getItems());
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.exception.InvalidInputException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.NOPLogger;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-endpoint sampling of request logging.
+ * <p>
+ * A resource method calls {@link #sample} once per request and logs through
+ * the returned logger: either its own logger, or a no-op logger when the
+ * request was not sampled. All log lines of a request are therefore kept or
+ * dropped together, and a dropped request costs no message formatting or
+ * appender work.
+ * <p>
+ * Endpoints are named ClassName.methodName. Each has a rate between 0 (never
+ * logged) and 1 (always logged); endpoints without a rate of their own use
+ * the default. The default is read from {@value #DEFAULT_RATE_PROPERTY}
+ * (default 1) and individual rates from {@value #RATES_PROPERTY}, e.g.
+ * "CartResource.addItemToCart=0.01,BookResource.getBookById=0"; both can be
+ * changed at runtime through {@link LoggingResource}.
+ */
+final class RequestLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestLog.class);
+
+    static final String DEFAULT_RATE_PROPERTY = "bookstore.log.sampleRate";
+    static final String RATES_PROPERTY = "bookstore.log.sampleRates";
+    // Key that addresses the default rate in the runtime configuration
+    static final String DEFAULT_KEY = "*";
+
+    private static final ConcurrentMap<String, Double> rates = new ConcurrentHashMap<>();
+    private static volatile double defaultRate = 1;
+
+    static {
+        try {
+            String configuredDefault = System.getProperty(DEFAULT_RATE_PROPERTY);
+            if (configuredDefault != null) {
+                setRate(DEFAULT_KEY, Double.parseDouble(configuredDefault.trim()));
+            }
+            for (String entry : System.getProperty(RATES_PROPERTY, "").split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator > 0) {
+                    setRate(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Ignoring the rest of the request log sampling configuration: {}", e.getMessage());
+        }
+    }
+
+    private RequestLog() {
+    }
+
+    // Decides whether this request to the endpoint is logged; returns the logger to use for all of its lines
+    static Logger sample(Logger logger, String endpoint) {
+        if (!logger.isInfoEnabled()) {
+            return NOPLogger.NOP_LOGGER;
+        }
+        double rate = rates.getOrDefault(endpoint, defaultRate);
+        if (rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return logger;
+        }
+        return NOPLogger.NOP_LOGGER;
+    }
+
+    // Current rates, with the default under DEFAULT_KEY
+    static Map<String, Double> getRates() {
+        Map<String, Double> current = new TreeMap<>(rates);
+        current.put(DEFAULT_KEY, defaultRate);
+        return current;
+    }
+
+    // Sets the rate of an endpoint, or the default rate for DEFAULT_KEY
+    static void setRate(String endpoint, double rate) {
+        checkRate(endpoint, rate);
+        if (DEFAULT_KEY.equals(endpoint)) {
+            defaultRate = rate;
+        } else {
+            rates.put(endpoint, rate);
+        }
+    }
+
+    // Makes the endpoint use the default rate again
+    static void resetRate(String endpoint) {
+        rates.remove(endpoint);
+    }
+
+    private static void checkRate(String endpoint, double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new InvalidInputException("Invalid sampling rate for " + endpoint + ": must be between 0 and 1.");
+        }
+    }
+}
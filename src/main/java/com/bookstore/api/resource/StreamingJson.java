@@ -0,0 +1,41 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.config.ObjectMapperProvider;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes large listings as a JSON array straight to the response stream.
+ * Entities are serialized one by one while the store is iterated, so no
+ * intermediate list is built and the first bytes go out before the last
+ * entity has been read.
+ */
+final class StreamingJson {
+    // Flushing per entity would defeat the generator's buffering
+    private static final ObjectWriter WRITER = ObjectMapperProvider.mapper().writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private StreamingJson() {
+    }
+
+    // Builds a 200 response that streams the items as a JSON array
+    static Response ok(Iterable<?> items) {
+        StreamingOutput body = output -> {
+            try (JsonGenerator generator = WRITER.createGenerator(output)) {
+                // The container closes the response stream itself
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                for (Object item : items) {
+                    WRITER.writeValue(generator, item);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return Response.ok(body, MediaType.APPLICATION_JSON_TYPE).build();
+    }
+}
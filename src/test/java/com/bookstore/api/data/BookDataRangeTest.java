@@ -0,0 +1,64 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Author;
+import com.bookstore.api.model.Book;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Filtering on both price and year must give the same pages whichever
+ * index range the page is built from. Prices and years are far from those
+ * of other tests' books.
+ */
+class BookDataRangeTest {
+
+    @BeforeAll
+    static void seed() {
+        Author author = AuthorData.addAuthor(new Author(0, "Range Writer", null));
+        for (int i = 0; i < 400; i++) {
+            BookData.addBook(new Book(0, "Range " + i, author.getId(), "range-" + i, 1500 + i % 100, 500 + (i * 37 % 100), 1));
+        }
+    }
+
+    @Test
+    void smallOtherRangeMatchesFullScan() {
+        // Two years out of a hundred, sorted by price over the whole price band
+        assertPagesMatch(new BookFilter(500.0, 599.0, 1510, 1511), BookSort.PRICE_ASC);
+        assertPagesMatch(new BookFilter(500.0, 599.0, 1510, 1511), BookSort.PRICE_DESC);
+    }
+
+    @Test
+    void largeOtherRangeMatchesFullScan() {
+        // A narrow price band, sorted by year over most years
+        assertPagesMatch(new BookFilter(520.0, 522.0, 1500, 1590), BookSort.YEAR_ASC);
+        assertPagesMatch(new BookFilter(520.0, 522.0, 1500, 1590), BookSort.YEAR_DESC);
+    }
+
+    private static void assertPagesMatch(BookFilter filter, BookSort sort) {
+        Comparator<Book> order = sort == BookSort.PRICE_ASC || sort == BookSort.PRICE_DESC
+                ? Comparator.comparingDouble(Book::getPrice)
+                : Comparator.comparingInt(Book::getPublicationYear);
+        order = order.thenComparingInt(Book::getId);
+        if (sort == BookSort.PRICE_DESC || sort == BookSort.YEAR_DESC) {
+            order = order.reversed();
+        }
+        List<Integer> expected = new ArrayList<>();
+        BookData.getAllBooks().stream().filter(filter::matches).sorted(order).forEach(book -> expected.add(book.getId()));
+
+        List<Integer> paged = new ArrayList<>();
+        Long cursor = null;
+        do {
+            Page<Book> page = BookData.getBooksPage(filter, sort, cursor, 3);
+            page.getItems().forEach(book -> paged.add(book.getId()));
+            cursor = page.getNextCursor() != null ? Long.valueOf(page.getNextCursor()) : null;
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Cart;
+import com.bookstore.api.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Cart changes store a new cart, so a cart once read never changes; and a
+ * cart taken by a checkout that then fails is given back without losing or
+ * leaking reserved stock. Book ids are not in the catalog.
+ */
+class CartDataTest {
+
+    @Test
+    void changesLeaveEarlierCartsUntouched() {
+        int bookId = 1_000_103;
+        InventoryData.setStock(bookId, 100);
+        int customerId = CustomerData.addCustomer(new Customer(0, "U", "untouched@cart.example", "p")).getId();
+        for (int i = 1; i <= 40; i++) {
+            InventoryData.setStock(bookId + i, 5);
+            CartData.addItem(customerId, bookId + i, 1);
+        }
+        InventoryData.setStock(bookId + 100, 5);
+        Cart before = CartData.addItem(customerId, bookId, 2);
+
+        CartData.updateItem(customerId, bookId, 5);
+        CartData.removeItem(customerId, bookId + 1);
+        CartData.addItem(customerId, bookId + 100, 1);
+
+        assertEquals(41, before.getItems().size());
+        assertEquals(2, before.getQuantity(bookId));
+        assertEquals(1, before.getQuantity(bookId + 1));
+        Cart after = CartData.findCartByCustomerId(customerId);
+        assertEquals(5, after.getQuantity(bookId));
+        assertEquals(0, after.getQuantity(bookId + 1));
+        assertEquals(41, after.getItems().size());
+    }
+
+    @Test
+    void returnedCartMergesWithNewCart() {
+        int bookId = 1_000_101;
+        InventoryData.setStock(bookId, 10);
+        int customerId = CustomerData.addCustomer(new Customer(0, "R", "return@cart.example", "p")).getId();
+        CartData.addItem(customerId, bookId, 3);
+
+        Cart taken = CartData.takeCart(customerId);
+        CartData.addItem(customerId, bookId, 2);
+        CartData.returnCart(taken);
+
+        assertEquals(5, CartData.findCartByCustomerId(customerId).getQuantity(bookId));
+        assertEquals(5, InventoryData.getAvailable(bookId));
+    }
+
+    @Test
+    void returnedCartOfDeletedCustomerGoesBackToStock() {
+        int bookId = 1_000_102;
+        InventoryData.setStock(bookId, 10);
+        int customerId = CustomerData.addCustomer(new Customer(0, "D", "deleted@cart.example", "p")).getId();
+        CartData.addItem(customerId, bookId, 4);
+
+        Cart taken = CartData.takeCart(customerId);
+        CustomerData.deleteCustomer(customerId);
+        CartData.returnCart(taken);
+
+        assertNull(CartData.findCartByCustomerId(customerId));
+        assertEquals(10, InventoryData.getAvailable(bookId));
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Replay must accept histories that pass through duplicate emails, which a
+ * fuzzy snapshot or out-of-order records of different customers can produce.
+ */
+class CustomerDataTest {
+
+    @Test
+    void restoreToleratesEmailMovingBetweenCustomers() {
+        // A moves from x to y and B claims x, but A's move is logged after B's claim
+        CustomerData.restoreCustomer(new Customer(2_000_001, "A", "x@restore.example", "p"));
+        CustomerData.restoreCustomer(new Customer(2_000_002, "B", "X@restore.example", "p"));
+        CustomerData.restoreCustomer(new Customer(2_000_001, "A", "y@restore.example", "p"));
+        CustomerData.rebuildEmailIndex();
+
+        assertEquals(2_000_002, CustomerData.findCustomerByEmail("x@restore.example").getId());
+        assertEquals(2_000_001, CustomerData.findCustomerByEmail("y@restore.example").getId());
+    }
+
+    @Test
+    void restoredDeletionFreesEmail() {
+        CustomerData.restoreCustomer(new Customer(2_000_011, "C", "z@restore.example", "p"));
+        CustomerData.restoreCustomerDeletion(2_000_011);
+        CustomerData.rebuildEmailIndex();
+
+        assertNull(CustomerData.findCustomerByEmail("z@restore.example"));
+    }
+}
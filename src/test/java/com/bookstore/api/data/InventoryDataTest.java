@@ -0,0 +1,124 @@
+package com.bookstore.api.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many threads race to reserve a small stock of one book; none may oversell.
+ * Book ids are not in the catalog, so the counters are exercised on their own.
+ */
+class InventoryDataTest {
+    private static final int THREADS = 16;
+    private static final int INITIAL_STOCK = 1000;
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        int bookId = 1_000_001;
+        InventoryData.setStock(bookId, INITIAL_STOCK);
+        StockWatcher watcher = new StockWatcher(bookId);
+
+        List<Integer> reservedPerThread = race(() -> {
+            int reserved = 0;
+            while (true) {
+                int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+                StockReservation reservation = InventoryData.reserve(bookId, quantity);
+                if (reservation.isReserved()) {
+                    reserved += quantity;
+                } else if (reservation.getAvailable() == 0) {
+                    return reserved;
+                }
+            }
+        });
+        watcher.stop();
+
+        int totalReserved = reservedPerThread.stream().mapToInt(Integer::intValue).sum();
+        assertEquals(INITIAL_STOCK, totalReserved, "units reserved");
+        assertEquals(0, InventoryData.getAvailable(bookId), "units left");
+        assertFalse(watcher.sawNegative(), "stock went negative");
+    }
+
+    @Test
+    void concurrentReserveAndReleaseConserveStock() throws Exception {
+        int bookId = 1_000_002;
+        InventoryData.setStock(bookId, 10);
+        StockWatcher watcher = new StockWatcher(bookId);
+
+        race(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+                if (InventoryData.adjust(bookId, quantity).isReserved()) {
+                    assertTrue(InventoryData.adjust(bookId, -quantity).isReserved());
+                }
+            }
+            return 0;
+        });
+        watcher.stop();
+
+        assertEquals(10, InventoryData.getAvailable(bookId), "every reserved unit came back");
+        assertFalse(watcher.sawNegative(), "stock went negative");
+    }
+
+    // Runs the task on every thread at once and returns each thread's result
+    private static List<Integer> race(Callable<Integer> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Polls a book's stock from its own thread while the race runs
+    private static final class StockWatcher {
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final AtomicBoolean negative = new AtomicBoolean();
+        private final Thread thread;
+
+        StockWatcher(int bookId) {
+            thread = new Thread(() -> {
+                while (running.get()) {
+                    if (InventoryData.getAvailable(bookId) < 0) {
+                        negative.set(true);
+                    }
+                }
+            });
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+
+        boolean sawNegative() {
+            return negative.get();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Author;
+import com.bookstore.api.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Paging through search results must give the same ranking as one page
+ * holding every match, although each page only keeps its best matches.
+ */
+class SearchIndexTest {
+
+    @Test
+    void pagesFollowTheFullRanking() {
+        Author author = AuthorData.addAuthor(new Author(0, "Zebulon Quill", null));
+        Author other = AuthorData.addAuthor(new Author(0, "Someone Else", null));
+        for (int i = 0; i < 25; i++) {
+            // Title hits outrank author hits; books matching both rank first
+            String title = i % 3 == 0 ? "Quill and Ink " + i : "Untitled " + i;
+            int authorId = i % 2 == 0 ? author.getId() : other.getId();
+            BookData.addBook(new Book(0, title, authorId, "search-" + i, 2000, 10, 1));
+        }
+
+        List<Integer> all = ids(BookData.searchBooks("quill", 0, 100).getItems());
+        List<Integer> paged = new ArrayList<>();
+        String cursor = "0";
+        while (cursor != null) {
+            Page<Book> page = BookData.searchBooks("quill", Integer.parseInt(cursor), 4);
+            paged.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        }
+
+        assertEquals(all, paged);
+        assertEquals(9 + 13 - 5, all.size());
+        assertNull(BookData.searchBooks("quill", 0, all.size()).getNextCursor());
+    }
+
+    private static List<Integer> ids(List<Book> books) {
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookstore.api.data;
+
+import com.bookstore.api.model.Author;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recovery through stop and start. The stores are static, so each test
+ * drops its authors while the log is off and checks that the next start
+ * brings them back from the log and snapshot alone.
+ */
+class WriteAheadLogTest {
+    private static final byte[] TORN_RECORD = {0, 0, 0, 40, 1, 2, 3, 4, 5, 6};
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void stopLog() {
+        WriteAheadLog.stop();
+    }
+
+    @Test
+    void startReplaysWritesOfThePreviousRun() {
+        start();
+        Author author = AuthorData.addAuthor(new Author(0, "Replayed Author", "Biography"));
+        AuthorData.updateAuthor(new Author(author.getId(), "Renamed Replayed Author", "Biography"));
+        WriteAheadLog.stop();
+        AuthorData.deleteAuthor(author.getId());
+
+        start();
+
+        assertEquals("Renamed Replayed Author", AuthorData.findAuthorById(author.getId()).getName());
+    }
+
+    @Test
+    void startCutsOffTornTailAndKeepsAppending() throws IOException {
+        start();
+        Author first = AuthorData.addAuthor(new Author(0, "Torn Tail Author", "Biography"));
+        WriteAheadLog.stop();
+        Path segment = lastSegment();
+        long intactSize = Files.size(segment);
+        Files.write(segment, TORN_RECORD, StandardOpenOption.APPEND);
+        AuthorData.deleteAuthor(first.getId());
+
+        start();
+        assertNotNull(AuthorData.findAuthorById(first.getId()));
+        assertEquals(intactSize, Files.size(segment));
+        Author second = AuthorData.addAuthor(new Author(0, "After Torn Tail Author", "Biography"));
+        WriteAheadLog.stop();
+        AuthorData.deleteAuthor(first.getId());
+        AuthorData.deleteAuthor(second.getId());
+
+        start();
+
+        assertNotNull(AuthorData.findAuthorById(first.getId()));
+        assertNotNull(AuthorData.findAuthorById(second.getId()));
+    }
+
+    @Test
+    void startRefusesCorruptRecordBeforeLaterSegments() throws IOException {
+        start();
+        Author first = AuthorData.addAuthor(new Author(0, "Before Gap Author", "Biography"));
+        WriteAheadLog.stop();
+        Files.write(lastSegment(), TORN_RECORD, StandardOpenOption.APPEND);
+        start();
+        Author second = AuthorData.addAuthor(new Author(0, "After Gap Author", "Biography"));
+        WriteAheadLog.stop();
+        Files.write(segments().get(0), TORN_RECORD, StandardOpenOption.APPEND);
+
+        assertThrows(UncheckedIOException.class, this::start);
+        assertFalse(WriteAheadLog.isEnabled());
+        AuthorData.deleteAuthor(first.getId());
+        AuthorData.deleteAuthor(second.getId());
+    }
+
+    @Test
+    void startReplaysLogOnTopOfSnapshot() throws IOException {
+        start();
+        Author before = AuthorData.addAuthor(new Author(0, "Snapshot Author", "Biography"));
+        Author deleted = AuthorData.addAuthor(new Author(0, "Deleted After Snapshot Author", "Biography"));
+        Path coveredSegment = lastSegment();
+        WriteAheadLog.snapshot();
+        Author after = AuthorData.addAuthor(new Author(0, "Post Snapshot Author", "Biography"));
+        AuthorData.deleteAuthor(deleted.getId());
+        WriteAheadLog.stop();
+        AuthorData.deleteAuthor(before.getId());
+        AuthorData.deleteAuthor(after.getId());
+        AuthorData.restoreAuthor(new Author(deleted.getId(), "Deleted After Snapshot Author", "Biography"));
+
+        start();
+
+        assertFalse(Files.exists(coveredSegment));
+        assertNotNull(AuthorData.findAuthorById(before.getId()));
+        assertNotNull(AuthorData.findAuthorById(after.getId()));
+        assertNull(AuthorData.findAuthorById(deleted.getId()));
+    }
+
+    private void start() {
+        // No scheduled snapshots, so each test decides when one is taken
+        WriteAheadLog.start(directory, DurabilityMode.PER_WRITE, 0, 0, 0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".wal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 1);
+    }
+}
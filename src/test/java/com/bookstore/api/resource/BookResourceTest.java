@@ -0,0 +1,36 @@
+package com.bookstore.api.resource;
+
+import com.bookstore.api.data.AuthorData;
+import com.bookstore.api.model.Author;
+import com.bookstore.api.model.BatchResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A bad NDJSON line, including a literal null, fails only itself.
+ */
+class BookResourceTest {
+
+    @Test
+    void nullLineIsReportedAsInvalid() throws IOException {
+        Author author = AuthorData.addAuthor(new Author(0, "Import Writer", null));
+        String body = "null\n"
+                + "{\"title\":\"Imported\",\"authorId\":" + author.getId()
+                + ",\"isbn\":\"import-null-1\",\"publicationYear\":2001,\"price\":9.5,\"stock\":2}\n"
+                + "{not json\n";
+
+        BatchResult result = (BatchResult) new BookResource()
+                .importBooks(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))
+                .getEntity();
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getFailed());
+        assertEquals(1, result.getErrors().get(0).getLine());
+        assertEquals(3, result.getErrors().get(1).getLine());
+    }
+}